@@ -0,0 +1,86 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/**
+ * Measures {@link User#addUserReward(UserReward)} for a user who already holds
+ * {@code existingRewards} rewards, both for a duplicate attraction and for new ones.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AddUserRewardBenchmark {
+
+    private static final int NEW_REWARDS = 100;
+
+    @Param({"0", "10", "100", "1000"})
+    public int existingRewards;
+
+    private List<Attraction> attractions;
+    private VisitedLocation visitedLocation;
+    private UserReward duplicateReward;
+    private UserReward[] newRewards;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        attractions = new LocalGpsUtil(existingRewards + NEW_REWARDS, 0).getAttractions();
+        visitedLocation = new VisitedLocation(UUID.randomUUID(), attractions.get(0), new Date());
+        duplicateReward = new UserReward(visitedLocation, attractions.get(0), 1);
+        newRewards = new UserReward[NEW_REWARDS];
+        for (int i = 0; i < NEW_REWARDS; i++) {
+            newRewards[i] = new UserReward(visitedLocation, attractions.get(existingRewards + i), 1);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        user = new User(UUID.randomUUID(), "benchmark", "000", "benchmark@tourGuide.com");
+        for (int i = 0; i < existingRewards; i++) {
+            user.addUserReward(new UserReward(visitedLocation, attractions.get(i), 1));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NEW_REWARDS)
+    public User addDuplicateReward() {
+        for (int i = 0; i < NEW_REWARDS; i++) {
+            user.addUserReward(duplicateReward);
+        }
+        return user;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NEW_REWARDS)
+    public User addNewRewards() {
+        for (UserReward reward : newRewards) {
+            user.addUserReward(reward);
+        }
+        return user;
+    }
+}
@@ -0,0 +1,95 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Measures a full {@link RewardsService#calculateRewards(User)} pass over a fresh user,
+ * for different location history and attraction catalog sizes. One location in ten
+ * is placed on an attraction so that rewards are actually granted.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalculateRewardsBenchmark {
+
+    @Param({"3", "100", "1000"})
+    public int historySize;
+
+    @Param({"26", "1000", "10000"})
+    public int catalogSize;
+
+    @Param({"0"})
+    public long rewardLatencyMillis;
+
+    private ExecutorService executorService;
+    private RewardsService rewardsService;
+    private List<Location> history;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        executorService = Executors.newSingleThreadExecutor();
+        LocalGpsUtil gpsUtil = new LocalGpsUtil(catalogSize, 0);
+        rewardsService = new RewardsService(gpsUtil, new LocalRewardCentral(rewardLatencyMillis), executorService);
+
+        List<Attraction> attractions = gpsUtil.getAttractions();
+        Random random = new Random(7);
+        history = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            history.add(i % 10 == 0
+                    ? attractions.get(random.nextInt(attractions.size()))
+                    : new Location(LocalGpsUtil.randomLatitude(random), LocalGpsUtil.randomLongitude(random)));
+        }
+        rewardsService.getAttractionIndex();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        user = new User(UUID.randomUUID(), "benchmark", "000", "benchmark@tourGuide.com");
+        Date now = new Date();
+        for (Location location : history) {
+            user.addToVisitedLocations(new VisitedLocation(user.getUserId(), location, now));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorService.shutdown();
+    }
+
+    @Benchmark
+    public User calculateRewards() {
+        rewardsService.calculateRewards(user);
+        return user;
+    }
+}
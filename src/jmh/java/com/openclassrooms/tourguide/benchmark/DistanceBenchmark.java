@@ -0,0 +1,55 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gpsUtil.location.Location;
+import com.openclassrooms.tourguide.service.RewardsService;
+
+/**
+ * Measures {@link RewardsService#getDistance(Location, Location)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DistanceBenchmark {
+
+    private ExecutorService executorService;
+    private RewardsService rewardsService;
+    private Location from;
+    private Location to;
+
+    @Setup
+    public void setUp() {
+        executorService = Executors.newSingleThreadExecutor();
+        rewardsService = new RewardsService(new LocalGpsUtil(0, 0), new LocalRewardCentral(0), executorService);
+        from = new Location(33.817595, -117.922008);
+        to = new Location(40.712776, -74.005974);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdown();
+    }
+
+    @Benchmark
+    public double getDistance() {
+        return rewardsService.getDistance(from, to);
+    }
+}
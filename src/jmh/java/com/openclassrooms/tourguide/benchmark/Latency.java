@@ -0,0 +1,21 @@
+package com.openclassrooms.tourguide.benchmark;
+
+/**
+ * Simulated latency of the external services.
+ */
+final class Latency {
+
+    private Latency() {
+    }
+
+    static void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * Local stand-in for {@link GpsUtil}, with a generated attraction catalog of any size
+ * and a configurable latency instead of the jar's rate limiter and random sleeps.
+ */
+public class LocalGpsUtil extends GpsUtil {
+
+    private final List<Attraction> attractions;
+    private final long latencyMillis;
+
+    /**
+     * @param catalogSize   the number of attractions in the catalog
+     * @param latencyMillis how long each {@link #getUserLocation(UUID)} call blocks
+     */
+    public LocalGpsUtil(int catalogSize, long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        Random random = new Random(42);
+        List<Attraction> catalog = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            catalog.add(new Attraction("Attraction " + i, "City " + i, "State",
+                    randomLatitude(random), randomLongitude(random)));
+        }
+        this.attractions = Collections.unmodifiableList(catalog);
+    }
+
+    @Override
+    public VisitedLocation getUserLocation(UUID userId) {
+        Latency.pause(latencyMillis);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new VisitedLocation(userId, new Location(randomLatitude(random), randomLongitude(random)), new Date());
+    }
+
+    @Override
+    public List<Attraction> getAttractions() {
+        return new ArrayList<>(attractions);
+    }
+
+    static double randomLatitude(Random random) {
+        return -85.05112878 + random.nextDouble() * 2 * 85.05112878;
+    }
+
+    static double randomLongitude(Random random) {
+        return -180 + random.nextDouble() * 360;
+    }
+}
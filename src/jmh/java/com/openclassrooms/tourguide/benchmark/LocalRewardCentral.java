@@ -0,0 +1,26 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.UUID;
+
+import rewardCentral.RewardCentral;
+
+/**
+ * Local stand-in for {@link RewardCentral} with a configurable latency.
+ */
+public class LocalRewardCentral extends RewardCentral {
+
+    private final long latencyMillis;
+
+    /**
+     * @param latencyMillis how long each {@link #getAttractionRewardPoints(UUID, UUID)} call blocks
+     */
+    public LocalRewardCentral(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+        Latency.pause(latencyMillis);
+        return 1 + Math.floorMod(attractionId.hashCode() ^ userId.hashCode(), 1000);
+    }
+}
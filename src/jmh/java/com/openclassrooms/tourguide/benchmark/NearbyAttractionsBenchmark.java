@@ -0,0 +1,89 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.attraction.NearbyAttraction;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Measures {@link TourGuideService#getNearByAttractions(User, VisitedLocation)} for repeat requests
+ * from the same user, for different attraction catalog sizes, with and without writing the response
+ * through a shared {@link ObjectWriter}, as the web layer does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NearbyAttractionsBenchmark {
+
+    @Param({"26", "1000", "10000"})
+    public int catalogSize;
+
+    @Param({"0"})
+    public long rewardLatencyMillis;
+
+    private static final ObjectWriter WRITER = new ObjectMapper()
+            .writerFor(new TypeReference<List<NearbyAttraction>>() { });
+
+    private ExecutorService executorService;
+    private TourGuideService tourGuideService;
+    private User user;
+    private VisitedLocation visitedLocation;
+
+    @Setup
+    public void setUp() {
+        executorService = Executors.newSingleThreadExecutor();
+        LocalGpsUtil gpsUtil = new LocalGpsUtil(catalogSize, 0);
+        RewardsService rewardsService = new RewardsService(gpsUtil, new LocalRewardCentral(rewardLatencyMillis), executorService);
+        InternalTestHelper.setInternalUserNumber(0);
+        tourGuideService = new TourGuideService(gpsUtil, rewardsService, executorService);
+
+        user = new User(UUID.randomUUID(), "benchmark", "000", "benchmark@tourGuide.com");
+        visitedLocation = new VisitedLocation(user.getUserId(), new Location(33.817595, -117.922008), new Date());
+        user.addToVisitedLocations(visitedLocation);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdown();
+    }
+
+    @Benchmark
+    public List<NearbyAttraction> getNearByAttractions() {
+        return tourGuideService.getNearByAttractions(user, visitedLocation);
+    }
+
+    @Benchmark
+    public byte[] writeNearByAttractions() throws JsonProcessingException {
+        return WRITER.writeValueAsBytes(tourGuideService.getNearByAttractions(user, visitedLocation));
+    }
+}
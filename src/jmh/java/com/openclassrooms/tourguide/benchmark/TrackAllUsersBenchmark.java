@@ -0,0 +1,81 @@
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.tourguide.config.ExecutorMode;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * Measures one {@link TourGuideService#trackAllUserLocations(List)} cycle over every internal user,
+ * with simulated GpsUtil and RewardCentral latencies, for each executor mode.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrackAllUsersBenchmark {
+
+    @Param({"1000", "10000"})
+    public int userCount;
+
+    @Param({"10"})
+    public long gpsLatencyMillis;
+
+    @Param({"10"})
+    public long rewardLatencyMillis;
+
+    @Param({"FIXED", "VIRTUAL"})
+    public ExecutorMode executorMode;
+
+    @Param({"100"})
+    public int poolSize;
+
+    @Param({"1000"})
+    public int maxInFlight;
+
+    private ExecutorService executorService;
+    private TourGuideService tourGuideService;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        executorService = executorMode.create(poolSize);
+        LocalGpsUtil gpsUtil = new LocalGpsUtil(26, gpsLatencyMillis);
+        RewardsService rewardsService = new RewardsService(gpsUtil, new LocalRewardCentral(rewardLatencyMillis), executorService);
+        InternalTestHelper.setInternalUserNumber(userCount);
+        tourGuideService = new TourGuideService(gpsUtil, rewardsService, executorService);
+        tourGuideService.setTrackingMaxInFlight(maxInFlight);
+        users = tourGuideService.getAllUsers();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public List<User> trackAllUserLocations() {
+        tourGuideService.trackAllUserLocations(users);
+        return users;
+    }
+}
@@ -1,60 +1,283 @@
 package com.openclassrooms.tourguide;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
 
+import com.openclassrooms.tourguide.attraction.NearbyAttraction;
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
 
 import tripPricer.Provider;
 
+/**
+ * REST endpoints of the TourGuide application.
+ *
+ * <p>Endpoints that call GpsUtil, RewardCentral or TripPricer run on virtual threads and return a
+ * {@link CompletableFuture}, so the servlet thread is released while the third-party call is in
+ * progress. Each of them fails with {@code 504 Gateway Timeout} once its configured timeout expires,
+ * and the thread still serving it is interrupted. An unknown user name answers {@code 404 Not Found}.</p>
+ *
+ * <p>The {@code /bulk} endpoints answer for many users in one request, keyed by user name, and
+ * {@code /stream/locations} streams every user's last location as newline-delimited JSON.</p>
+ */
+@Slf4j
 @RestController
 public class TourGuideController {
 
-	@Autowired
-	TourGuideService tourGuideService;
-	
+	/** Media type of newline-delimited JSON. */
+	private static final String NDJSON = "application/x-ndjson";
+
+	/** Shared, thread-safe factory of the streaming JSON generators. */
+	private static final JsonFactory JSON = new JsonFactory();
+
+	private final TourGuideService tourGuideService;
+
+	/** Runs the blocking part of the requests, one virtual thread per request. */
+	private final ExecutorService requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+	private Duration getLocationTimeout = Duration.ofSeconds(5);
+	private Duration getNearbyAttractionsTimeout = Duration.ofSeconds(5);
+	private Duration getRewardsTimeout = Duration.ofSeconds(5);
+	private Duration getTripDealsTimeout = Duration.ofSeconds(5);
+	private Duration bulkTimeout = Duration.ofSeconds(30);
+	private int bulkMaxUsers = 10_000;
+
+	public TourGuideController(TourGuideService tourGuideService) {
+		this.tourGuideService = tourGuideService;
+	}
+
+	@Value("${web.timeout.get-location:5s}")
+	public void setGetLocationTimeout(Duration getLocationTimeout) {
+		this.getLocationTimeout = getLocationTimeout;
+	}
+
+	@Value("${web.timeout.get-nearby-attractions:5s}")
+	public void setGetNearbyAttractionsTimeout(Duration getNearbyAttractionsTimeout) {
+		this.getNearbyAttractionsTimeout = getNearbyAttractionsTimeout;
+	}
+
+	@Value("${web.timeout.get-rewards:5s}")
+	public void setGetRewardsTimeout(Duration getRewardsTimeout) {
+		this.getRewardsTimeout = getRewardsTimeout;
+	}
+
+	@Value("${web.timeout.get-trip-deals:5s}")
+	public void setGetTripDealsTimeout(Duration getTripDealsTimeout) {
+		this.getTripDealsTimeout = getTripDealsTimeout;
+	}
+
+	@Value("${web.timeout.bulk:30s}")
+	public void setBulkTimeout(Duration bulkTimeout) {
+		this.bulkTimeout = bulkTimeout;
+	}
+
+	@Value("${web.bulk.max-users:10000}")
+	public void setBulkMaxUsers(int bulkMaxUsers) {
+		this.bulkMaxUsers = bulkMaxUsers;
+	}
+
     @RequestMapping("/")
     public String index() {
         return "Greetings from TourGuide!";
     }
-    
-    @RequestMapping("/getLocation") 
-    public VisitedLocation getLocation(@RequestParam String userName) {
-    	return tourGuideService.getUserLocation(getUser(userName));
+
+    @RequestMapping("/getLocation")
+    public CompletableFuture<VisitedLocation> getLocation(@RequestParam String userName) {
+    	User user = getUser(userName);
+    	return async(() -> tourGuideService.getUserLocation(user), getLocationTimeout);
     }
-    
 
-    @RequestMapping("/getNearbyAttractions") 
-    public List<ObjectNode> getNearbyAttractions(@RequestParam String userName) {
-    	VisitedLocation visitedLocation = tourGuideService.getUserLocation(getUser(userName));
-        User user = tourGuideService.getUser(userName);
-    	return tourGuideService.getNearByAttractions(user,visitedLocation);
+
+    @RequestMapping("/getNearbyAttractions")
+    public CompletableFuture<List<NearbyAttraction>> getNearbyAttractions(@RequestParam String userName) {
+    	User user = getUser(userName);
+    	return async(() -> {
+    	    VisitedLocation visitedLocation = tourGuideService.getUserLocation(user);
+    	    return tourGuideService.getNearByAttractions(user, visitedLocation);
+        }, getNearbyAttractionsTimeout);
     }
-    
-    @RequestMapping("/getRewards") 
-    public List<UserReward> getRewards(@RequestParam String userName) {
-    	return tourGuideService.getUserRewards(getUser(userName));
+
+    @RequestMapping("/getRewards")
+    public CompletableFuture<List<UserReward>> getRewards(@RequestParam String userName) {
+    	User user = getUser(userName);
+    	return async(() -> tourGuideService.getUserRewards(user), getRewardsTimeout);
     }
-       
+
     @RequestMapping("/getTripDeals")
-    public List<Provider> getTripDeals(@RequestParam String userName) {
-    	return tourGuideService.getTripDeals(getUser(userName));
+    public CompletableFuture<List<Provider>> getTripDeals(@RequestParam String userName) {
+    	User user = getUser(userName);
+    	return async(() -> tourGuideService.getTripDeals(user), getTripDealsTimeout);
+    }
+
+    /**
+     * Returns the locations of many users in one request.
+     *
+     * @param userNames the user names; unknown users are left out
+     * @return the locations by user name
+     */
+    @PostMapping("/bulk/getLocation")
+    public CompletableFuture<Map<String, VisitedLocation>> getLocations(@RequestBody List<String> userNames) {
+    	List<User> users = getUsers(userNames);
+    	return async(() -> byUserName(users, tourGuideService.getUserLocations(users)), bulkTimeout);
     }
-    
+
+    /**
+     * Returns the rewards of many users in one request.
+     *
+     * @param userNames the user names; unknown users are left out
+     * @return the rewards by user name
+     */
+    @PostMapping("/bulk/getRewards")
+    public Map<String, List<UserReward>> getRewards(@RequestBody List<String> userNames) {
+    	Map<String, List<UserReward>> rewards = new LinkedHashMap<>();
+    	getUsers(userNames).forEach(user -> rewards.put(user.getUserName(), tourGuideService.getUserRewards(user)));
+    	return rewards;
+    }
+
+    /**
+     * Returns the nearby attractions of many users in one request.
+     *
+     * @param userNames the user names; unknown users are left out
+     * @return the nearby attractions by user name
+     */
+    @PostMapping("/bulk/getNearbyAttractions")
+    public CompletableFuture<Map<String, List<NearbyAttraction>>> getNearbyAttractions(@RequestBody List<String> userNames) {
+    	List<User> users = getUsers(userNames);
+    	return async(() -> {
+            Map<UUID, VisitedLocation> locations = tourGuideService.getUserLocations(users);
+            Map<String, List<NearbyAttraction>> attractions = new LinkedHashMap<>();
+            for (User user : users) {
+                VisitedLocation visitedLocation = locations.get(user.getUserId());
+                if (visitedLocation != null) {
+                    attractions.put(user.getUserName(), tourGuideService.getNearByAttractions(user, visitedLocation));
+                }
+            }
+            return attractions;
+        }, bulkTimeout);
+    }
+
+    /**
+     * Streams the last recorded location of every user as newline-delimited JSON, one user per
+     * line, straight from the user repository. No location is looked up, and users without a
+     * recorded location are skipped.
+     *
+     * @return the response body, written as users are walked
+     */
+    @GetMapping(value = "/stream/locations", produces = NDJSON)
+    public StreamingResponseBody streamLocations() {
+        return out -> {
+            try (JsonGenerator generator = JSON.createGenerator(out)) {
+                int lines = 0;
+                for (User user : tourGuideService.getUserRepository()) {
+                    if (user.getLocationHistory().isEmpty()) {
+                        continue;
+                    }
+                    VisitedLocation visitedLocation = user.getLastVisitedLocation();
+                    generator.writeStartObject();
+                    generator.writeStringField("userName", user.getUserName());
+                    generator.writeStringField("userId", user.getUserId().toString());
+                    generator.writeNumberField("latitude", visitedLocation.location.latitude);
+                    generator.writeNumberField("longitude", visitedLocation.location.longitude);
+                    generator.writeNumberField("timeVisited", visitedLocation.timeVisited.getTime());
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                    if (++lines % 1000 == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+        };
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<String> handleTimeout(TimeoutException e) {
+        log.warn("Request timed out: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body("The request timed out");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        requestExecutor.shutdownNow();
+    }
+
     private User getUser(String userName) {
-    	return tourGuideService.getUser(userName);
+        User user = tourGuideService.getUser(userName);
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown user: " + userName);
+        }
+        return user;
     }
-   
 
-}
\ No newline at end of file
+    private List<User> getUsers(List<String> userNames) {
+        if (userNames.size() > bulkMaxUsers) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + bulkMaxUsers + " users can be requested at once");
+        }
+        return userNames.stream().distinct().map(tourGuideService::getUser).filter(Objects::nonNull).toList();
+    }
+
+    private static <T> Map<String, T> byUserName(List<User> users, Map<UUID, T> byUserId) {
+        Map<String, T> values = new LinkedHashMap<>();
+        for (User user : users) {
+            T value = byUserId.get(user.getUserId());
+            if (value != null) {
+                values.put(user.getUserName(), value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Runs a handler on its own virtual thread, which is interrupted if the timeout expires, or the
+     * result is otherwise abandoned, before the handler returns.
+     */
+    private <T> CompletableFuture<T> async(Supplier<T> handler, Duration timeout) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = requestExecutor.submit(() -> {
+            try {
+                result.complete(handler.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, failure) -> {
+            if (failure != null) {
+                task.cancel(true);
+            }
+        });
+        return result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+
+}
@@ -1,12 +1,17 @@
 package com.openclassrooms.tourguide;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import gpsUtil.GpsUtil;
 import rewardCentral.RewardCentral;
+import tripPricer.TripPricer;
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+import com.openclassrooms.tourguide.cache.TripQuoteCache;
 import com.openclassrooms.tourguide.service.RewardsService;
 
+import java.time.Duration;
 import java.util.concurrent.*;
 
 /**
@@ -17,7 +22,9 @@ import java.util.concurrent.*;
  * <ul>
  *   <li>{@link GpsUtil} - A utility service to retrieve GPS locations.</li>
  *   <li>{@link RewardCentral} - A service that provides attraction reward points.</li>
+ *   <li>{@link RewardPointsCache} - A bounded cache in front of {@link RewardCentral}.</li>
  *   <li>{@link RewardsService} - A service responsible for calculating user rewards.</li>
+ *   <li>{@link TripQuoteCache} - A bounded cache in front of {@link TripPricer}.</li>
  * </ul>
  * </p>
  *
@@ -50,8 +57,8 @@ public class TourGuideModule {
 	}
 	
 	@Bean
-	public RewardsService getRewardsService() {
-		return new RewardsService(getGpsUtil(), getRewardCentral(),executorService);
+	public RewardsService getRewardsService(RewardPointsCache rewardPointsCache) {
+		return new RewardsService(getGpsUtil(), rewardPointsCache, executorService);
 	}
 	
 	@Bean
@@ -59,6 +66,36 @@ public class TourGuideModule {
 		return new RewardCentral();
 	}
 
+	/**
+	 * Provides the cache in front of {@link RewardCentral}.
+	 *
+	 * @param enabled     whether reward points are cached, from {@code rewards.points-cache.enabled}
+	 * @param maximumSize the maximum number of entries, from {@code rewards.points-cache.maximum-size}
+	 * @param ttl         the entry time-to-live, from {@code rewards.points-cache.ttl}
+	 * @return the reward points cache
+	 */
+	@Bean
+	public RewardPointsCache getRewardPointsCache(@Value("${rewards.points-cache.enabled:true}") boolean enabled,
+			@Value("${rewards.points-cache.maximum-size:1000000}") long maximumSize,
+			@Value("${rewards.points-cache.ttl:30m}") Duration ttl) {
+		return new RewardPointsCache(getRewardCentral(), enabled, maximumSize, ttl);
+	}
+
+	/**
+	 * Provides the cache in front of {@link TripPricer}.
+	 *
+	 * @param enabled     whether trip quotes are cached, from {@code trip-deals.quote-cache.enabled}
+	 * @param maximumSize the maximum number of quotes, from {@code trip-deals.quote-cache.maximum-size}
+	 * @param ttl         the quote time-to-live, from {@code trip-deals.quote-cache.ttl}
+	 * @return the trip quote cache
+	 */
+	@Bean
+	public TripQuoteCache getTripQuoteCache(@Value("${trip-deals.quote-cache.enabled:true}") boolean enabled,
+			@Value("${trip-deals.quote-cache.maximum-size:100000}") long maximumSize,
+			@Value("${trip-deals.quote-cache.ttl:10m}") Duration ttl) {
+		return new TripQuoteCache(new TripPricer(), enabled, maximumSize, ttl);
+	}
+
 
 
 }
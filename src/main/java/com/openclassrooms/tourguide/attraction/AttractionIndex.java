@@ -0,0 +1,285 @@
+package com.openclassrooms.tourguide.attraction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+
+/**
+ * The {@code AttractionIndex} class is an immutable spatial index over the attraction catalog.
+ * It answers "attractions within N miles" and "k nearest attractions" queries without scanning
+ * the whole catalog.
+ *
+ * <p>Each attraction is projected onto the unit sphere as an (x, y, z) vector and stored in a
+ * balanced 3-d tree. The straight-line (chord) distance between two such vectors grows with their
+ * great-circle distance, so tree pruning stays exact everywhere on the globe, including across the
+ * antimeridian and near the poles.</p>
+ *
+ * <p>Each attraction's latitude and longitude in radians and the cosine of its latitude are also
+ * precomputed, so a radius query checks a candidate with a latitude/longitude bounding box first
+ * and only then with the exact {@link DistanceKernel} distance, without allocating per candidate.</p>
+ */
+public class AttractionIndex {
+
+    /** Earth radius in statute miles, consistent with the 60 nautical miles per degree used by the rewards service. */
+    public static final double EARTH_RADIUS_MILES = DistanceKernel.EARTH_RADIUS_MILES;
+
+    /** Tolerance applied to chord comparisons so that boundary points are never pruned by rounding. */
+    private static final double CHORD_EPSILON = 1e-9;
+
+    /** Tolerance applied to the bounding box, in radians, for the same reason. */
+    private static final double BOX_EPSILON = 1e-9;
+
+    /** The attractions in catalog order. */
+    private final List<Attraction> attractions;
+
+    /** The attractions in tree order: the median of every sub-range is its root. */
+    private final Attraction[] nodes;
+
+    /** Unit-sphere coordinates of {@link #nodes}, stored as primitive columns. */
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+
+    /** Latitude and longitude of {@link #nodes} in radians, and the cosine of the latitude. */
+    private final double[] latRads;
+    private final double[] lonRads;
+    private final double[] cosLats;
+
+    /**
+     * Builds an index over the given attractions.
+     *
+     * @param attractions the attraction catalog to index
+     */
+    public AttractionIndex(List<Attraction> attractions) {
+        this.attractions = Collections.unmodifiableList(new ArrayList<>(attractions));
+        this.nodes = attractions.toArray(new Attraction[0]);
+        this.xs = new double[nodes.length];
+        this.ys = new double[nodes.length];
+        this.zs = new double[nodes.length];
+        this.latRads = new double[nodes.length];
+        this.lonRads = new double[nodes.length];
+        this.cosLats = new double[nodes.length];
+        build(0, nodes.length, 0);
+        for (int i = 0; i < nodes.length; i++) {
+            double lat = Math.toRadians(nodes[i].latitude);
+            double lon = Math.toRadians(nodes[i].longitude);
+            double cosLat = Math.cos(lat);
+            latRads[i] = lat;
+            lonRads[i] = lon;
+            cosLats[i] = cosLat;
+            xs[i] = cosLat * Math.cos(lon);
+            ys[i] = cosLat * Math.sin(lon);
+            zs[i] = Math.sin(lat);
+        }
+    }
+
+    /**
+     * Returns the indexed attractions in catalog order.
+     *
+     * @return an unmodifiable list of attractions
+     */
+    public List<Attraction> getAttractions() {
+        return attractions;
+    }
+
+    /**
+     * Returns the number of indexed attractions.
+     *
+     * @return the catalog size
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Finds every attraction within the given great-circle radius of a location.
+     * <p>
+     * The tree is pruned on chord length; each remaining candidate goes through a bounding-box check
+     * and then the exact {@link DistanceKernel} distance, so the result needs no re-check.
+     * </p>
+     *
+     * @param location the centre of the search
+     * @param miles    the search radius in statute miles
+     * @return the matching attractions, in no particular order
+     */
+    public List<Attraction> findWithin(Location location, double miles) {
+        if (miles < 0 || nodes.length == 0) {
+            return List.of();
+        }
+        double angle = miles / EARTH_RADIUS_MILES;
+        if (angle >= Math.PI) {
+            return attractions;
+        }
+        double chord = 2 * Math.sin(angle / 2);
+        RadiusQuery query = new RadiusQuery(location, miles, angle, chord * chord + CHORD_EPSILON);
+        List<Attraction> result = new ArrayList<>();
+        collectWithin(query, 0, nodes.length, 0, result);
+        return result;
+    }
+
+    /**
+     * Finds the {@code k} attractions closest to a location.
+     *
+     * @param location the reference location
+     * @param k        the maximum number of attractions to return
+     * @return up to {@code k} attractions, closest first
+     */
+    public List<Attraction> findNearest(Location location, int k) {
+        int limit = Math.min(k, nodes.length);
+        if (limit <= 0) {
+            return List.of();
+        }
+        double[] query = toUnitVector(location);
+        int[] bestNodes = new int[limit];
+        double[] bestDistances = new double[limit];
+        Arrays.fill(bestDistances, Double.POSITIVE_INFINITY);
+        collectNearest(query, 0, nodes.length, 0, bestNodes, bestDistances);
+
+        List<Attraction> result = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            result.add(nodes[bestNodes[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Recursively orders {@code nodes[from, to)} so that its median along {@code axis} becomes the
+     * root of the sub-tree, with smaller coordinates on its left and larger ones on its right.
+     */
+    private void build(int from, int to, int axis) {
+        if (to - from <= 1) {
+            return;
+        }
+        Arrays.sort(nodes, from, to, Comparator.comparingDouble(a -> coordinate(a, axis)));
+        int mid = (from + to) >>> 1;
+        build(from, mid, (axis + 1) % 3);
+        build(mid + 1, to, (axis + 1) % 3);
+    }
+
+    private void collectWithin(RadiusQuery query, int from, int to, int axis, List<Attraction> result) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        if (query.contains(mid)) {
+            result.add(nodes[mid]);
+        }
+        double diff = query.axisValue(axis) - axisValue(mid, axis);
+        int next = (axis + 1) % 3;
+        if (diff <= 0 || diff * diff <= query.maxChord2) {
+            collectWithin(query, from, mid, next, result);
+        }
+        if (diff >= 0 || diff * diff <= query.maxChord2) {
+            collectWithin(query, mid + 1, to, next, result);
+        }
+    }
+
+    private void collectNearest(double[] query, int from, int to, int axis, int[] bestNodes, double[] bestDistances) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        offer(mid, chord2(query, mid), bestNodes, bestDistances);
+
+        double diff = query[axis] - axisValue(mid, axis);
+        int next = (axis + 1) % 3;
+        boolean leftFirst = diff <= 0;
+        if (leftFirst) {
+            collectNearest(query, from, mid, next, bestNodes, bestDistances);
+        } else {
+            collectNearest(query, mid + 1, to, next, bestNodes, bestDistances);
+        }
+        if (diff * diff <= bestDistances[bestDistances.length - 1] + CHORD_EPSILON) {
+            if (leftFirst) {
+                collectNearest(query, mid + 1, to, next, bestNodes, bestDistances);
+            } else {
+                collectNearest(query, from, mid, next, bestNodes, bestDistances);
+            }
+        }
+    }
+
+    /** Inserts a node into the sorted best-candidates arrays if it beats the current worst entry. */
+    private static void offer(int node, double distance, int[] bestNodes, double[] bestDistances) {
+        int last = bestDistances.length - 1;
+        if (distance >= bestDistances[last]) {
+            return;
+        }
+        int i = last;
+        while (i > 0 && bestDistances[i - 1] > distance) {
+            bestDistances[i] = bestDistances[i - 1];
+            bestNodes[i] = bestNodes[i - 1];
+            i--;
+        }
+        bestDistances[i] = distance;
+        bestNodes[i] = node;
+    }
+
+    private double chord2(double[] query, int node) {
+        double dx = query[0] - xs[node];
+        double dy = query[1] - ys[node];
+        double dz = query[2] - zs[node];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * A radius query: the centre as a unit vector and in radians, the chord bound used to prune the
+     * tree, and the latitude/longitude bounding box checked before the exact distance.
+     */
+    private final class RadiusQuery {
+        private final double x;
+        private final double y;
+        private final double z;
+        private final double lat;
+        private final double lon;
+        private final double cosLat;
+        private final double miles;
+        private final double maxChord2;
+        private final double latHalfHeight;
+        private final double lonHalfWidth;
+
+        private RadiusQuery(Location location, double miles, double angle, double maxChord2) {
+            this.lat = Math.toRadians(location.latitude);
+            this.lon = Math.toRadians(location.longitude);
+            this.cosLat = Math.cos(lat);
+            this.x = cosLat * Math.cos(lon);
+            this.y = cosLat * Math.sin(lon);
+            this.z = Math.sin(lat);
+            this.miles = miles;
+            this.maxChord2 = maxChord2;
+            this.latHalfHeight = angle + BOX_EPSILON;
+            this.lonHalfWidth = DistanceKernel.longitudeHalfWidth(lat, angle) + BOX_EPSILON;
+        }
+
+        private double axisValue(int axis) {
+            return axis == 0 ? x : axis == 1 ? y : z;
+        }
+
+        private boolean contains(int node) {
+            if (Math.abs(latRads[node] - lat) > latHalfHeight
+                    || DistanceKernel.longitudeDelta(lonRads[node], lon) > lonHalfWidth) {
+                return false;
+            }
+            return DistanceKernel.distanceMiles(latRads[node], lonRads[node], cosLats[node], lat, lon, cosLat) <= miles;
+        }
+    }
+
+    private double axisValue(int node, int axis) {
+        return axis == 0 ? xs[node] : axis == 1 ? ys[node] : zs[node];
+    }
+
+    private static double coordinate(Location location, int axis) {
+        return toUnitVector(location)[axis];
+    }
+
+    private static double[] toUnitVector(Location location) {
+        double lat = Math.toRadians(location.latitude);
+        double lon = Math.toRadians(location.longitude);
+        double cosLat = Math.cos(lat);
+        return new double[] { cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat) };
+    }
+}
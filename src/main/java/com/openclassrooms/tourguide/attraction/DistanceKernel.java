@@ -0,0 +1,82 @@
+package com.openclassrooms.tourguide.attraction;
+
+/**
+ * The {@code DistanceKernel} class holds the great-circle distance computations shared by the
+ * rewards service and the attraction index.
+ *
+ * <p>Distances use the haversine formula, which stays accurate for nearby points where the
+ * spherical law of cosines loses precision to {@code acos} of a value close to 1. Every method
+ * works on primitive values, so callers can precompute radians and cosines once per point and
+ * run the kernel in a tight loop without allocating.</p>
+ */
+public final class DistanceKernel {
+
+    /** Earth radius in statute miles, consistent with the 60 nautical miles per degree used by the rewards service. */
+    public static final double EARTH_RADIUS_MILES = 60 * 1.15077945 * 180 / Math.PI;
+
+    private DistanceKernel() {
+    }
+
+    /**
+     * Computes the distance between two points given in degrees.
+     *
+     * @param latitude1  latitude of the first point, in degrees
+     * @param longitude1 longitude of the first point, in degrees
+     * @param latitude2  latitude of the second point, in degrees
+     * @param longitude2 longitude of the second point, in degrees
+     * @return the great-circle distance in statute miles
+     */
+    public static double distanceMiles(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double lat1 = Math.toRadians(latitude1);
+        double lat2 = Math.toRadians(latitude2);
+        return distanceMiles(lat1, Math.toRadians(longitude1), Math.cos(lat1),
+                lat2, Math.toRadians(longitude2), Math.cos(lat2));
+    }
+
+    /**
+     * Computes the distance between two points whose radians and latitude cosines are already known.
+     *
+     * @param lat1    latitude of the first point, in radians
+     * @param lon1    longitude of the first point, in radians
+     * @param cosLat1 cosine of {@code lat1}
+     * @param lat2    latitude of the second point, in radians
+     * @param lon2    longitude of the second point, in radians
+     * @param cosLat2 cosine of {@code lat2}
+     * @return the great-circle distance in statute miles
+     */
+    public static double distanceMiles(double lat1, double lon1, double cosLat1,
+                                       double lat2, double lon2, double cosLat2) {
+        double sinHalfDLat = Math.sin((lat2 - lat1) * 0.5);
+        double sinHalfDLon = Math.sin((lon2 - lon1) * 0.5);
+        double h = sinHalfDLat * sinHalfDLat + cosLat1 * cosLat2 * sinHalfDLon * sinHalfDLon;
+        return 2 * Math.asin(Math.sqrt(Math.min(1, h))) * EARTH_RADIUS_MILES;
+    }
+
+    /**
+     * Returns the half-width, in radians of longitude, of a box that contains every point within
+     * {@code angle} radians of a point at latitude {@code lat}, or {@link Double#POSITIVE_INFINITY}
+     * when the circle reaches a pole and every longitude must be kept.
+     *
+     * @param lat   latitude of the centre, in radians
+     * @param angle the search radius as a central angle, in radians
+     * @return the longitude half-width of the bounding box
+     */
+    public static double longitudeHalfWidth(double lat, double angle) {
+        if (Math.abs(lat) + angle >= Math.PI / 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.asin(Math.sin(angle) / Math.cos(lat));
+    }
+
+    /**
+     * Returns the absolute difference between two longitudes, wrapped into {@code [0, PI]}.
+     *
+     * @param lon1 the first longitude, in radians
+     * @param lon2 the second longitude, in radians
+     * @return the wrapped longitude difference
+     */
+    public static double longitudeDelta(double lon1, double lon2) {
+        double delta = Math.abs(lon1 - lon2);
+        return delta > Math.PI ? 2 * Math.PI - delta : delta;
+    }
+}
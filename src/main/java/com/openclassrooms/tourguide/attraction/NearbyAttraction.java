@@ -0,0 +1,24 @@
+package com.openclassrooms.tourguide.attraction;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import gpsUtil.location.Attraction;
+
+/**
+ * An attraction near a user, as answered by the nearby attractions endpoint: the attraction, the
+ * user's location, the distance between them and the reward points the attraction is worth to the
+ * user.
+ *
+ * <p>It is written by {@link NearbyAttractionSerializer}, which reuses the serialized field and
+ * attraction names from one response to the next.</p>
+ *
+ * @param attraction    the attraction
+ * @param userLatitude  the user's latitude
+ * @param userLongitude the user's longitude
+ * @param distance      the distance from the user to the attraction, in miles
+ * @param rewardPoints  the reward points of the attraction for the user
+ */
+@JsonSerialize(using = NearbyAttractionSerializer.class)
+public record NearbyAttraction(Attraction attraction, double userLatitude, double userLongitude,
+                               double distance, int rewardPoints) {
+}
@@ -0,0 +1,58 @@
+package com.openclassrooms.tourguide.attraction;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes a {@link NearbyAttraction} as
+ * {@code {"name", "attractionLatitude", "attractionLongitude", "userLatitude", "userLongitude", "distance", "rewardPoints"}}.
+ *
+ * <p>Field names and attraction names are written from {@link SerializedString}s, which keep their
+ * quoted UTF-8 bytes, so they are escaped and encoded once instead of once per response. Every
+ * token still goes through the generator, so separators and pretty printing are the mapper's. The
+ * attraction names are cached by the name itself, so a catalog refresh never serves a stale one.</p>
+ */
+public class NearbyAttractionSerializer extends StdSerializer<NearbyAttraction> {
+
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString ATTRACTION_LATITUDE = new SerializedString("attractionLatitude");
+    private static final SerializableString ATTRACTION_LONGITUDE = new SerializedString("attractionLongitude");
+    private static final SerializableString USER_LATITUDE = new SerializedString("userLatitude");
+    private static final SerializableString USER_LONGITUDE = new SerializedString("userLongitude");
+    private static final SerializableString DISTANCE = new SerializedString("distance");
+    private static final SerializableString REWARD_POINTS = new SerializedString("rewardPoints");
+
+    /** Serialized attraction names. The catalog holds a few hundred names, so this stays bounded. */
+    private static final ConcurrentMap<String, SerializableString> NAMES = new ConcurrentHashMap<>();
+
+    public NearbyAttractionSerializer() {
+        super(NearbyAttraction.class);
+    }
+
+    @Override
+    public void serialize(NearbyAttraction value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(value);
+        generator.writeFieldName(NAME);
+        generator.writeString(NAMES.computeIfAbsent(value.attraction().attractionName, SerializedString::new));
+        generator.writeFieldName(ATTRACTION_LATITUDE);
+        generator.writeNumber(value.attraction().latitude);
+        generator.writeFieldName(ATTRACTION_LONGITUDE);
+        generator.writeNumber(value.attraction().longitude);
+        generator.writeFieldName(USER_LATITUDE);
+        generator.writeNumber(value.userLatitude());
+        generator.writeFieldName(USER_LONGITUDE);
+        generator.writeNumber(value.userLongitude());
+        generator.writeFieldName(DISTANCE);
+        generator.writeNumber(value.distance());
+        generator.writeFieldName(REWARD_POINTS);
+        generator.writeNumber(value.rewardPoints());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,158 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+import lombok.extern.slf4j.Slf4j;
+import rewardCentral.RewardCentral;
+
+/**
+ * The {@code RewardPointsCache} class is a bounded cache in front of the blocking
+ * {@link RewardCentral#getAttractionRewardPoints(UUID, UUID)} call.
+ *
+ * <p>Entries are keyed by (attractionId, userId), expire after a configurable time-to-live and are
+ * evicted once the cache reaches its maximum size. Concurrent misses for the same key share a single
+ * lookup: the first caller performs it while the others wait for its result.</p>
+ *
+ * <p>When the cache is disabled, every call goes straight to {@link RewardCentral}.</p>
+ */
+@Slf4j
+public class RewardPointsCache {
+
+    /** Default maximum number of cached (attraction, user) entries. */
+    public static final long DEFAULT_MAXIMUM_SIZE = 1_000_000;
+
+    /** Default time-to-live of a cached entry. */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(30);
+
+    private final RewardCentral rewardCentral;
+
+    /** Meters recorded for RewardCentral calls. */
+    private TourGuideMetrics metrics = TourGuideMetrics.standalone();
+
+    /** The underlying cache, or {@code null} when caching is disabled. */
+    private final AsyncCache<RewardKey, Integer> cache;
+
+    /**
+     * Creates an enabled cache with the default size and time-to-live.
+     *
+     * @param rewardCentral the reward points provider
+     */
+    public RewardPointsCache(RewardCentral rewardCentral) {
+        this(rewardCentral, true, DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL);
+    }
+
+    /**
+     * Creates a cache in front of the given reward points provider.
+     *
+     * @param rewardCentral the reward points provider
+     * @param enabled       whether lookups should be cached at all
+     * @param maximumSize   the maximum number of cached entries
+     * @param ttl           how long an entry stays valid after it was loaded
+     */
+    public RewardPointsCache(RewardCentral rewardCentral, boolean enabled, long maximumSize, Duration ttl) {
+        this.rewardCentral = rewardCentral;
+        this.cache = enabled
+                ? Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(ttl)
+                        .recordStats()
+                        .buildAsync()
+                : null;
+        log.debug("Reward points cache {} (maximumSize={}, ttl={})", enabled ? "enabled" : "disabled", maximumSize, ttl);
+    }
+
+    /**
+     * Returns the reward points for an attraction and a user, loading them from {@link RewardCentral} on a miss.
+     *
+     * @param attractionId the attraction identifier
+     * @param userId       the user identifier
+     * @return the reward points
+     */
+    public int getRewardPoints(UUID attractionId, UUID userId) {
+        if (cache == null) {
+            return loadRewardPoints(attractionId, userId);
+        }
+
+        // The lookup runs on the caller thread, outside the cache's internal locks,
+        // so a slow RewardCentral call never blocks lookups for unrelated keys.
+        CompletableFuture<Integer> pending = new CompletableFuture<>();
+        CompletableFuture<Integer> points = cache.get(new RewardKey(attractionId, userId), (key, executor) -> pending);
+        if (points == pending) {
+            try {
+                pending.complete(loadRewardPoints(attractionId, userId));
+            } catch (RuntimeException e) {
+                pending.completeExceptionally(e);
+            }
+        }
+        return points.join();
+    }
+
+    private int loadRewardPoints(UUID attractionId, UUID userId) {
+        return metrics.rewardPoints().record(() -> rewardCentral.getAttractionRewardPoints(attractionId, userId));
+    }
+
+    /**
+     * Sets the meters recorded for RewardCentral calls.
+     *
+     * @param metrics the shared TourGuide metrics
+     */
+    public void setMetrics(TourGuideMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Indicates whether lookups are cached.
+     *
+     * @return {@code true} if the cache is enabled
+     */
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Returns the hit, miss and eviction statistics of the cache.
+     *
+     * @return the cache statistics, empty when the cache is disabled
+     */
+    public CacheStats stats() {
+        return cache == null ? CacheStats.empty() : cache.synchronous().stats();
+    }
+
+    /**
+     * Returns the approximate number of cached entries.
+     *
+     * @return the estimated cache size
+     */
+    public long estimatedSize() {
+        return cache == null ? 0 : cache.synchronous().estimatedSize();
+    }
+
+    /**
+     * Removes every cached entry.
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.synchronous().invalidateAll();
+        }
+    }
+
+    /**
+     * Performs any pending maintenance, such as evicting entries above the maximum size.
+     */
+    public void cleanUp() {
+        if (cache != null) {
+            cache.synchronous().cleanUp();
+        }
+    }
+
+    /** Cache key combining the attraction and the user. */
+    private record RewardKey(UUID attractionId, UUID userId) {
+    }
+}
@@ -0,0 +1,151 @@
+package com.openclassrooms.tourguide.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+import lombok.extern.slf4j.Slf4j;
+import tripPricer.Provider;
+import tripPricer.TripPricer;
+
+/**
+ * The {@code TripQuoteCache} class is a bounded cache in front of the blocking
+ * {@link TripPricer#getPrice(String, UUID, int, int, int, int)} call.
+ *
+ * <p>Quotes are keyed by every input of the call: the user, the number of adults and children, the
+ * trip duration and the user's total reward points. A change to the user's preferences or rewards
+ * therefore looks up a different key and never serves a stale quote. Nothing invalidates the
+ * superseded entries: they only leave the cache when their time-to-live expires or the size bound
+ * evicts them. Concurrent misses for the same key share a single call to {@link TripPricer}.</p>
+ *
+ * <p>When the cache is disabled, every call goes straight to {@link TripPricer}.</p>
+ */
+@Slf4j
+public class TripQuoteCache {
+
+    /** Default maximum number of cached quotes. */
+    public static final long DEFAULT_MAXIMUM_SIZE = 100_000;
+
+    /** Default time-to-live of a cached quote. */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+
+    private final TripPricer tripPricer;
+
+    /** Meters recorded for TripPricer calls. */
+    private TourGuideMetrics metrics = TourGuideMetrics.standalone();
+
+    /** The underlying cache, or {@code null} when caching is disabled. */
+    private final AsyncCache<QuoteKey, List<Provider>> cache;
+
+    /**
+     * Creates an enabled cache with the default size and time-to-live.
+     *
+     * @param tripPricer the trip quote provider
+     */
+    public TripQuoteCache(TripPricer tripPricer) {
+        this(tripPricer, true, DEFAULT_MAXIMUM_SIZE, DEFAULT_TTL);
+    }
+
+    /**
+     * Creates a cache in front of the given trip quote provider.
+     *
+     * @param tripPricer  the trip quote provider
+     * @param enabled     whether quotes should be cached at all
+     * @param maximumSize the maximum number of cached quotes
+     * @param ttl         how long a quote stays valid after it was loaded
+     */
+    public TripQuoteCache(TripPricer tripPricer, boolean enabled, long maximumSize, Duration ttl) {
+        this.tripPricer = tripPricer;
+        this.cache = enabled
+                ? Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(ttl)
+                        .recordStats()
+                        .buildAsync()
+                : null;
+        log.debug("Trip quote cache {} (maximumSize={}, ttl={})", enabled ? "enabled" : "disabled", maximumSize, ttl);
+    }
+
+    /**
+     * Returns the trip quotes for a user's preferences and reward points, loading them from
+     * {@link TripPricer} on a miss.
+     *
+     * @param apiKey           the TripPricer API key
+     * @param userId           the user identifier
+     * @param adults           the number of adults
+     * @param children         the number of children
+     * @param nightsStay       the trip duration
+     * @param rewardsPoints    the user's total reward points
+     * @return an unmodifiable list of providers
+     */
+    public List<Provider> getPrice(String apiKey, UUID userId, int adults, int children, int nightsStay, int rewardsPoints) {
+        if (cache == null) {
+            return loadPrice(apiKey, userId, adults, children, nightsStay, rewardsPoints);
+        }
+
+        // Same single-flight scheme as RewardPointsCache: the first caller loads the quote
+        // on its own thread while concurrent callers for the same key wait for it.
+        CompletableFuture<List<Provider>> pending = new CompletableFuture<>();
+        CompletableFuture<List<Provider>> quote = cache.get(
+                new QuoteKey(userId, adults, children, nightsStay, rewardsPoints), (key, executor) -> pending);
+        if (quote == pending) {
+            try {
+                pending.complete(loadPrice(apiKey, userId, adults, children, nightsStay, rewardsPoints));
+            } catch (RuntimeException e) {
+                pending.completeExceptionally(e);
+            }
+        }
+        return quote.join();
+    }
+
+    private List<Provider> loadPrice(String apiKey, UUID userId, int adults, int children, int nightsStay, int rewardsPoints) {
+        return List.copyOf(metrics.tripPrice().record(
+                () -> tripPricer.getPrice(apiKey, userId, adults, children, nightsStay, rewardsPoints)));
+    }
+
+    /**
+     * Sets the meters recorded for TripPricer calls.
+     *
+     * @param metrics the shared TourGuide metrics
+     */
+    public void setMetrics(TourGuideMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Indicates whether quotes are cached.
+     *
+     * @return {@code true} if the cache is enabled
+     */
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Returns the hit, miss and eviction statistics of the cache.
+     *
+     * @return the cache statistics, empty when the cache is disabled
+     */
+    public CacheStats stats() {
+        return cache == null ? CacheStats.empty() : cache.synchronous().stats();
+    }
+
+    /**
+     * Removes every cached quote.
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.synchronous().invalidateAll();
+        }
+    }
+
+    /** Cache key combining the user and every input of the quote. */
+    private record QuoteKey(UUID userId, int adults, int children, int nightsStay, int rewardsPoints) {
+    }
+}
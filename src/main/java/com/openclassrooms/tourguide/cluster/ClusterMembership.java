@@ -0,0 +1,33 @@
+package com.openclassrooms.tourguide.cluster;
+
+import java.util.Set;
+
+/**
+ * The {@code ClusterMembership} interface tells a node which TourGuide nodes share the users.
+ *
+ * <p>Implementations notify their listeners whenever a member joins or leaves, so that user
+ * ownership can be rebalanced.</p>
+ */
+public interface ClusterMembership {
+
+    /**
+     * Returns the id of this node.
+     *
+     * @return the local member id
+     */
+    String getLocalMemberId();
+
+    /**
+     * Returns the ids of the current members, this node included.
+     *
+     * @return the member ids
+     */
+    Set<String> getMembers();
+
+    /**
+     * Registers a listener called after every membership change.
+     *
+     * @param listener the listener
+     */
+    void addListener(Runnable listener);
+}
@@ -0,0 +1,97 @@
+package com.openclassrooms.tourguide.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * The {@code ConsistentHashRing} class is an immutable consistent hash ring assigning each user to
+ * one member.
+ *
+ * <p>Users are placed by a hash of their user name, the one key every node agrees on: user ids are
+ * generated per node, so two nodes may know the same user under different ids.</p>
+ *
+ * <p>Every member is placed on the ring at a number of virtual node positions, and a user belongs
+ * to the member of the first position at or after its own hash, wrapping around. When a member
+ * joins or leaves, only the users next to its positions change owner, about one user in
+ * {@code members} of them. Positions are kept in a sorted primitive array searched by binary
+ * search.</p>
+ */
+public class ConsistentHashRing {
+
+    private final long[] positions;
+    private final String[] owners;
+
+    /**
+     * Builds a ring.
+     *
+     * @param members      the member ids
+     * @param virtualNodes the number of positions of each member
+     */
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("A ring needs at least one member");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be at least 1");
+        }
+        int size = members.size() * virtualNodes;
+        long[] hashes = new long[size];
+        String[] names = new String[size];
+        int i = 0;
+        for (String member : members) {
+            for (int v = 0; v < virtualNodes; v++, i++) {
+                hashes[i] = hash(member + "#" + v);
+                names[i] = member;
+            }
+        }
+        Integer[] order = new Integer[size];
+        Arrays.setAll(order, index -> index);
+        // ties are broken by member id, so every node builds the same ring whatever the member order
+        Arrays.sort(order, (a, b) -> hashes[a] != hashes[b]
+                ? Long.compare(hashes[a], hashes[b]) : names[a].compareTo(names[b]));
+        this.positions = new long[size];
+        this.owners = new String[size];
+        for (int k = 0; k < size; k++) {
+            positions[k] = hashes[order[k]];
+            owners[k] = names[order[k]];
+        }
+    }
+
+    /**
+     * Returns the member owning a user.
+     *
+     * @param userName the user name
+     * @return the member id
+     */
+    public String ownerOf(String userName) {
+        int index = Arrays.binarySearch(positions, hash(userName));
+        if (index < 0) {
+            index = -index - 1;
+        } else {
+            while (index > 0 && positions[index - 1] == positions[index]) {
+                index--;
+            }
+        }
+        return owners[index == positions.length ? 0 : index];
+    }
+
+    static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /** The 64-bit finalizer of MurmurHash3. */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
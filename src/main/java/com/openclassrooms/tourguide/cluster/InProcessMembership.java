@@ -0,0 +1,80 @@
+package com.openclassrooms.tourguide.cluster;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The {@code InProcessMembership} class is the membership of one node of a {@link Group} living in
+ * the same JVM, so that several TourGuide instances can share users on one machine, as in tests.
+ */
+public class InProcessMembership implements ClusterMembership {
+
+    /**
+     * A set of nodes in the same JVM. Joining or leaving notifies the listeners of every node.
+     */
+    public static class Group {
+
+        private final Set<String> members = new ConcurrentSkipListSet<>();
+        private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+        /**
+         * Adds a node to the group.
+         *
+         * @param memberId the id of the node
+         * @return the membership of the node
+         */
+        public InProcessMembership join(String memberId) {
+            if (!members.add(memberId)) {
+                throw new IllegalStateException("Member " + memberId + " already joined");
+            }
+            InProcessMembership membership = new InProcessMembership(this, memberId);
+            notifyListeners();
+            return membership;
+        }
+
+        private void leave(String memberId) {
+            if (members.remove(memberId)) {
+                notifyListeners();
+            }
+        }
+
+        private void notifyListeners() {
+            listeners.forEach(Runnable::run);
+        }
+    }
+
+    private final Group group;
+    private final String localMemberId;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private InProcessMembership(Group group, String localMemberId) {
+        this.group = group;
+        this.localMemberId = localMemberId;
+    }
+
+    /**
+     * Removes this node from its group. Its listeners are not called any more.
+     */
+    public void leave() {
+        group.listeners.removeAll(listeners);
+        group.leave(localMemberId);
+    }
+
+    @Override
+    public String getLocalMemberId() {
+        return localMemberId;
+    }
+
+    @Override
+    public Set<String> getMembers() {
+        return Set.copyOf(group.members);
+    }
+
+    @Override
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+        group.listeners.add(listener);
+    }
+}
@@ -0,0 +1,43 @@
+package com.openclassrooms.tourguide.cluster;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The {@code StaticMembership} class is a fixed list of members, read from the configuration.
+ * Members never change, so listeners are never called.
+ */
+public class StaticMembership implements ClusterMembership {
+
+    private final String localMemberId;
+    private final Set<String> members;
+
+    /**
+     * Creates a static membership.
+     *
+     * @param localMemberId the id of this node, added to the members if missing
+     * @param members       the ids of every node
+     */
+    public StaticMembership(String localMemberId, Iterable<String> members) {
+        Set<String> all = new LinkedHashSet<>();
+        members.forEach(all::add);
+        all.add(localMemberId);
+        this.localMemberId = localMemberId;
+        this.members = Set.copyOf(all);
+    }
+
+    @Override
+    public String getLocalMemberId() {
+        return localMemberId;
+    }
+
+    @Override
+    public Set<String> getMembers() {
+        return members;
+    }
+
+    @Override
+    public void addListener(Runnable listener) {
+        // the members never change
+    }
+}
@@ -0,0 +1,121 @@
+package com.openclassrooms.tourguide.cluster;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
+
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * The {@code UserOwnership} class tells whether this node owns a user, so that each node of a
+ * cluster tracks and rewards only its own shard of the users.
+ *
+ * <p>Users are assigned by user name by a {@link ConsistentHashRing} over the current members. The
+ * ring is rebuilt whenever the membership changes; the tracker picks the new assignment up at its
+ * next cycle or revolution.</p>
+ *
+ * <p>Ownership only governs the tracker. A request that tracks a user, such as {@code /getLocation}
+ * for a user whose last location is stale, is served by whichever node receives it: the location is
+ * looked up and the rewards calculated there, and only that node records them. The load balancer
+ * should route each user name to its owner node, for example by hashing the {@code userName}
+ * parameter the same way, so that requests and tracking agree.</p>
+ */
+@Slf4j
+public class UserOwnership {
+
+    private final ClusterMembership membership;
+    private final int virtualNodes;
+    private volatile ConsistentHashRing ring;
+
+    /**
+     * Creates the ownership of the local member and follows membership changes.
+     *
+     * @param membership   the cluster membership
+     * @param virtualNodes the number of ring positions of each member
+     */
+    public UserOwnership(ClusterMembership membership, int virtualNodes) {
+        this.membership = membership;
+        this.virtualNodes = virtualNodes;
+        rebalance();
+        membership.addListener(this::rebalance);
+    }
+
+    /**
+     * Tells whether this node owns a user.
+     *
+     * @param user the user
+     * @return {@code true} if the user belongs to the local member
+     */
+    public boolean owns(User user) {
+        return owns(user.getUserName());
+    }
+
+    /**
+     * Tells whether this node owns a user.
+     *
+     * @param userName the user name
+     * @return {@code true} if the user belongs to the local member
+     */
+    public boolean owns(String userName) {
+        return membership.getLocalMemberId().equals(ring.ownerOf(userName));
+    }
+
+    /**
+     * Returns the users of this node among the given ones, filtered lazily.
+     *
+     * @param users the users
+     * @return the owned users
+     */
+    public Iterable<User> owned(Iterable<User> users) {
+        return () -> new Iterator<>() {
+            private final Iterator<User> delegate = users.iterator();
+            private User next = advance();
+
+            private User advance() {
+                while (delegate.hasNext()) {
+                    User user = delegate.next();
+                    if (owns(user)) {
+                        return user;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public User next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                User user = next;
+                next = advance();
+                return user;
+            }
+        };
+    }
+
+    /**
+     * Returns the id of this node.
+     *
+     * @return the local member id
+     */
+    public String getLocalMemberId() {
+        return membership.getLocalMemberId();
+    }
+
+    private synchronized void rebalance() {
+        Set<String> members = membership.getMembers();
+        if (members.isEmpty()) {
+            log.warn("No cluster member left; node {} keeps its previous users", membership.getLocalMemberId());
+            return;
+        }
+        ring = new ConsistentHashRing(members, virtualNodes);
+        log.info("User ownership rebalanced: node {} of {} members {}", membership.getLocalMemberId(), members.size(), members);
+    }
+}
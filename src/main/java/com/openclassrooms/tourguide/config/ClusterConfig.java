@@ -0,0 +1,54 @@
+package com.openclassrooms.tourguide.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.openclassrooms.tourguide.cluster.ClusterMembership;
+import com.openclassrooms.tourguide.cluster.StaticMembership;
+import com.openclassrooms.tourguide.cluster.UserOwnership;
+
+/**
+ * The {@code ClusterConfig} class shares the users between several TourGuide nodes when
+ * {@code cluster.enabled} is {@code true}: each node tracks only the users a consistent hash ring
+ * assigns to {@code cluster.node-id}, among the nodes of {@code cluster.members}, by user name.
+ * Requests are still served by any node; see {@link UserOwnership} for routing them to the owner.
+ *
+ * <p>The membership is a static list by default. Another {@link ClusterMembership} bean, such as one
+ * backed by a discovery service, replaces it.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    /**
+     * Provides the static membership.
+     *
+     * @param nodeId  the id of this node, from {@code cluster.node-id}
+     * @param members the ids of every node, from {@code cluster.members}
+     * @return the cluster membership
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ClusterMembership clusterMembership(@Value("${cluster.node-id}") String nodeId,
+                                               @Value("${cluster.members:}") List<String> members) {
+        return new StaticMembership(nodeId, members);
+    }
+
+    /**
+     * Provides the ownership of this node's users.
+     *
+     * @param membership   the cluster membership
+     * @param virtualNodes the number of ring positions of each node, from {@code cluster.virtual-nodes}
+     * @return the user ownership
+     */
+    @Bean
+    public UserOwnership userOwnership(ClusterMembership membership,
+                                       @Value("${cluster.virtual-nodes:128}") int virtualNodes) {
+        return new UserOwnership(membership, virtualNodes);
+    }
+}
@@ -1,18 +1,25 @@
 package com.openclassrooms.tourguide.config;
 
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
  * The {@code ExecutorConfig} class is a Spring configuration class responsible for managing
  * an {@link ExecutorService} bean. It provides a thread pool for executing asynchronous tasks.
+ *
+ * <p>The kind of executor is selected with the {@code executor.mode} property, see {@link ExecutorMode}.
+ * Every mode shares the same shutdown handling.</p>
  */
+@Slf4j
 @Configuration
 public class ExecutorConfig {
 
@@ -20,13 +27,17 @@ public class ExecutorConfig {
     private final ExecutorService executorService;
 
     /**
-     * Constructs an {@code ExecutorConfig} with a fixed thread pool size.
-     * The pool size can be configured via the {@code executor.pool.size} property.
+     * Constructs an {@code ExecutorConfig} with the configured execution mode.
+     * The mode and the pool size can be configured via the {@code executor.mode} and
+     * {@code executor.pool.size} properties.
      *
-     * @param //poolSize the number of threads in the pool, defaults to 4 if not specified.
+     * @param mode     the execution mode, defaults to {@link ExecutorMode#FIXED} if not specified.
+     * @param poolSize the number of threads in the pool, defaults to 4 if not specified.
      */
-    public ExecutorConfig(@Value("${executor.pool.size:4}") int poolSize) {
-        this.executorService = Executors.newFixedThreadPool(poolSize);
+    public ExecutorConfig(@Value("${executor.mode:FIXED}") ExecutorMode mode,
+                          @Value("${executor.pool.size:4}") int poolSize) {
+        this.executorService = mode.create(poolSize);
+        log.info("Executor started in {} mode (pool size {})", mode, poolSize);
     }
 
     /**
@@ -39,6 +50,18 @@ public class ExecutorConfig {
         return executorService;
     }
 
+    /**
+     * Publishes the executor's queue depth, active threads and completed tasks under the
+     * {@code executor.*} meters, tagged {@code name=tourguide}. Virtual-thread executors have
+     * no pool to report on, so they publish nothing.
+     *
+     * @return the executor meter binder, bound by the actuator to its meter registry.
+     */
+    @Bean
+    public MeterBinder executorServiceMetrics() {
+        return new ExecutorServiceMetrics(executorService, "tourguide", Tags.empty());
+    }
+
     /**
      * Gracefully shuts down the {@code ExecutorService} when the application is stopping.
      * It first attempts an orderly shutdown and waits for tasks to complete.
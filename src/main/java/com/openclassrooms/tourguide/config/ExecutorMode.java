@@ -0,0 +1,46 @@
+package com.openclassrooms.tourguide.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@code ExecutorMode} enum lists the execution strategies that {@link ExecutorConfig} can build.
+ * The mode is selected with the {@code executor.mode} property.
+ */
+public enum ExecutorMode {
+
+    /** A fixed pool of {@code executor.pool.size} platform threads. */
+    FIXED {
+        @Override
+        public ExecutorService create(int poolSize) {
+            return Executors.newFixedThreadPool(poolSize);
+        }
+    },
+
+    /**
+     * One virtual thread per task. Blocking calls to GpsUtil or RewardCentral park the virtual thread
+     * instead of holding an OS thread, so the pool size is ignored.
+     */
+    VIRTUAL {
+        @Override
+        public ExecutorService create(int poolSize) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+    },
+
+    /** A work-stealing fork-join pool with a parallelism of {@code executor.pool.size}. */
+    FORK_JOIN {
+        @Override
+        public ExecutorService create(int poolSize) {
+            return Executors.newWorkStealingPool(poolSize);
+        }
+    };
+
+    /**
+     * Creates a new executor service for this mode.
+     *
+     * @param poolSize the number of threads, or the parallelism, where the mode uses one
+     * @return the new executor service
+     */
+    public abstract ExecutorService create(int poolSize);
+}
@@ -0,0 +1,65 @@
+package com.openclassrooms.tourguide.config;
+
+import java.time.Duration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import gpsUtil.GpsUtil;
+import com.openclassrooms.tourguide.gps.GpsGateway;
+import com.openclassrooms.tourguide.gps.GpsUtilGateway;
+import com.openclassrooms.tourguide.gps.LatencyDistribution;
+import com.openclassrooms.tourguide.gps.ResilientGpsGateway;
+import com.openclassrooms.tourguide.gps.SimulatedGpsGateway;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+
+/**
+ * The {@code GpsConfig} class provides the {@link GpsGateway} every user location lookup goes through.
+ *
+ * <p>{@code gps.gateway} selects {@code GPSUTIL}, the third-party service, or {@code SIMULATED}, a
+ * local stand-in answering after a log-normal latency of median {@code gps.simulated.median-latency}
+ * and spread {@code gps.simulated.latency-sigma}. Either one is wrapped in a
+ * {@link ResilientGpsGateway} when {@code gps.timeout} or {@code gps.hedge-delay} is set.</p>
+ */
+@Slf4j
+@Configuration
+public class GpsConfig {
+
+    /** The GPS backends that can be selected. */
+    public enum Backend {
+        GPSUTIL,
+        SIMULATED
+    }
+
+    /**
+     * Provides the GPS gateway.
+     *
+     * @param gpsUtil       the GPS utility service
+     * @param metrics       the meters counting timeouts and hedged lookups
+     * @param backend       the GPS backend, defaults to {@link Backend#GPSUTIL}
+     * @param timeout       the deadline of a lookup, defaults to none
+     * @param hedgeDelay    how long a lookup runs before a second one is sent, defaults to no hedging
+     * @param medianLatency the median latency of the simulated backend
+     * @param latencySigma  the spread of the simulated backend's latency
+     * @return the GPS gateway, closed when the context shuts down if it owns threads
+     */
+    @Bean
+    public GpsGateway gpsGateway(GpsUtil gpsUtil, TourGuideMetrics metrics,
+                                 @Value("${gps.gateway:GPSUTIL}") Backend backend,
+                                 @Value("${gps.timeout:0s}") Duration timeout,
+                                 @Value("${gps.hedge-delay:0s}") Duration hedgeDelay,
+                                 @Value("${gps.simulated.median-latency:50ms}") Duration medianLatency,
+                                 @Value("${gps.simulated.latency-sigma:0.5}") double latencySigma) {
+        GpsGateway gateway = switch (backend) {
+            case GPSUTIL -> new GpsUtilGateway(gpsUtil);
+            case SIMULATED -> new SimulatedGpsGateway(LatencyDistribution.logNormal(medianLatency, latencySigma));
+        };
+        log.info("GPS gateway: {} (timeout={}, hedgeDelay={})", backend, timeout, hedgeDelay);
+        if (timeout.isZero() && hedgeDelay.isZero()) {
+            return gateway;
+        }
+        return new ResilientGpsGateway(gateway, timeout, hedgeDelay, metrics);
+    }
+}
@@ -0,0 +1,31 @@
+package com.openclassrooms.tourguide.config;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+
+/**
+ * The {@code InternalUsersConfig} class applies the configured seed and snapshot to the internal
+ * users generated in test mode. The tour guide service depends on it, so the settings are in place
+ * before the users are generated.
+ */
+@Configuration
+public class InternalUsersConfig {
+
+    /**
+     * Applies the settings configured via the {@code internal-users.seed} and
+     * {@code internal-users.snapshot} properties.
+     *
+     * @param seed     the seed of the generated users; unset for a different population on every start.
+     * @param snapshot the file the generated users are saved to, and loaded back from on the next start;
+     *                 unset to always generate them.
+     */
+    public InternalUsersConfig(@Value("${internal-users.seed:#{null}}") Long seed,
+                               @Value("${internal-users.snapshot:}") String snapshot) {
+        InternalTestHelper.setInternalUserSeed(seed);
+        InternalTestHelper.setInternalUserSnapshot(snapshot.isBlank() ? null : Path.of(snapshot));
+    }
+}
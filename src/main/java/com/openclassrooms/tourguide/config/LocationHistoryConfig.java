@@ -0,0 +1,33 @@
+package com.openclassrooms.tourguide.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.openclassrooms.tourguide.user.LocationHistory;
+import com.openclassrooms.tourguide.user.LocationRetention;
+
+/**
+ * The {@code LocationHistoryConfig} class provides the retention of every registered user's
+ * {@link LocationHistory}.
+ */
+@Configuration
+public class LocationHistoryConfig {
+
+    /**
+     * Provides the retention configured via the {@code user.history.max-entries} and
+     * {@code user.history.max-age} properties.
+     *
+     * @param maxEntries the maximum number of visited locations kept per user, defaults to 1000.
+     * @param maxAge     the maximum age of a visited location relative to the latest one, defaults to 30 days;
+     *                   {@code 0} keeps locations regardless of age.
+     * @return the location retention, applied by the TourGuide service to the users it registers
+     */
+    @Bean
+    public LocationRetention locationRetention(@Value("${user.history.max-entries:1000}") int maxEntries,
+                                               @Value("${user.history.max-age:30d}") Duration maxAge) {
+        return new LocationRetention(maxEntries, maxAge);
+    }
+}
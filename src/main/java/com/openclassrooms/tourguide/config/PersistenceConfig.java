@@ -0,0 +1,41 @@
+package com.openclassrooms.tourguide.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import com.openclassrooms.tourguide.persistence.UserLog;
+
+/**
+ * The {@code PersistenceConfig} class provides the {@link UserLog} that persists users, visited
+ * locations and rewards on the local disk. It is only active when {@code persistence.enabled} is
+ * {@code true}; otherwise users only live in memory.
+ */
+@Configuration
+@ConditionalOnProperty(name = "persistence.enabled", havingValue = "true")
+public class PersistenceConfig {
+
+    /**
+     * Opens the user log and schedules its flushes and compactions.
+     *
+     * @param directory          the log directory, from {@code persistence.directory}
+     * @param segmentSize        the size of a memory-mapped segment, from {@code persistence.segment-size}
+     * @param flushInterval      how often appended records are forced to disk, from {@code persistence.flush-interval}
+     * @param compactionInterval how often sealed segments are compacted, from {@code persistence.compaction-interval}
+     * @return the user log, closed when the context shuts down
+     */
+    @Bean(destroyMethod = "close")
+    public UserLog userLog(@Value("${persistence.directory:data/user-log}") Path directory,
+                           @Value("${persistence.segment-size:64MB}") DataSize segmentSize,
+                           @Value("${persistence.flush-interval:1s}") Duration flushInterval,
+                           @Value("${persistence.compaction-interval:1h}") Duration compactionInterval) {
+        UserLog userLog = new UserLog(directory, Math.toIntExact(segmentSize.toBytes()));
+        userLog.scheduleMaintenance(flushInterval, compactionInterval);
+        return userLog;
+    }
+}
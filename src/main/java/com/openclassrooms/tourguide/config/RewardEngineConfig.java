@@ -0,0 +1,36 @@
+package com.openclassrooms.tourguide.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+import com.openclassrooms.tourguide.service.RewardEngine;
+import com.openclassrooms.tourguide.service.RewardsService;
+
+/**
+ * The {@code RewardEngineConfig} class provides the {@link RewardEngine} that calculates the rewards
+ * of tracked locations on its own workers, unless {@code rewards.engine.enabled} is {@code false}, in
+ * which case rewards are calculated on the tracking threads.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rewards.engine.enabled", havingValue = "true", matchIfMissing = true)
+public class RewardEngineConfig {
+
+    /**
+     * Provides the reward engine.
+     *
+     * @param rewardsService the service calculating the rewards
+     * @param metrics        the meters recording the reward queue
+     * @param workers        the number of reward workers, from {@code rewards.engine.workers}
+     * @param capacity       the maximum number of queued users, from {@code rewards.engine.capacity}
+     * @return the reward engine, stopped when the context shuts down
+     */
+    @Bean(destroyMethod = "close")
+    public RewardEngine rewardEngine(RewardsService rewardsService, TourGuideMetrics metrics,
+                                     @Value("${rewards.engine.workers:16}") int workers,
+                                     @Value("${rewards.engine.capacity:100000}") int capacity) {
+        return new RewardEngine(rewardsService, workers, capacity, metrics);
+    }
+}
@@ -0,0 +1,47 @@
+package com.openclassrooms.tourguide.gps;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * The {@code GpsGateway} interface is the single entry point for user location lookups, so that
+ * callers do not depend on the third-party {@code GpsUtil} jar and can be given timeouts, hedging
+ * or a local stand-in without changing.
+ */
+public interface GpsGateway {
+
+    /**
+     * Returns the current location of a user.
+     *
+     * @param userId the user identifier
+     * @return the user's current location
+     * @throws GpsTimeoutException if the lookup did not complete within the gateway's deadline
+     */
+    VisitedLocation getUserLocation(UUID userId);
+
+    /**
+     * Returns the current locations of several users. Users whose lookup failed are left out.
+     * <p>
+     * The default implementation looks the users up one after the other; implementations able to
+     * run lookups concurrently override it.
+     * </p>
+     *
+     * @param userIds the user identifiers
+     * @return the locations by user identifier, in the order of {@code userIds}
+     */
+    default Map<UUID, VisitedLocation> getUserLocations(Collection<UUID> userIds) {
+        Map<UUID, VisitedLocation> locations = new LinkedHashMap<>();
+        for (UUID userId : userIds) {
+            try {
+                locations.put(userId, getUserLocation(userId));
+            } catch (RuntimeException e) {
+                // left out, as documented
+            }
+        }
+        return locations;
+    }
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.tourguide.gps;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Thrown when a user location lookup does not complete within its deadline.
+ */
+public class GpsTimeoutException extends RuntimeException {
+
+    /**
+     * Creates the exception.
+     *
+     * @param userId  the user whose location was looked up
+     * @param timeout the deadline that expired
+     */
+    public GpsTimeoutException(UUID userId, Duration timeout) {
+        super("GPS lookup for user " + userId + " timed out after " + timeout.toMillis() + " ms");
+    }
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.tourguide.gps;
+
+import java.util.UUID;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * The {@code GpsUtilGateway} class looks user locations up through the {@link GpsUtil} jar, on the
+ * calling thread and without any deadline.
+ */
+public class GpsUtilGateway implements GpsGateway {
+
+    private final GpsUtil gpsUtil;
+
+    /**
+     * Creates a gateway over the given {@link GpsUtil}.
+     *
+     * @param gpsUtil the GPS utility service
+     */
+    public GpsUtilGateway(GpsUtil gpsUtil) {
+        this.gpsUtil = gpsUtil;
+    }
+
+    @Override
+    public VisitedLocation getUserLocation(UUID userId) {
+        return gpsUtil.getUserLocation(userId);
+    }
+}
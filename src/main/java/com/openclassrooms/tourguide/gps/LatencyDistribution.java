@@ -0,0 +1,65 @@
+package com.openclassrooms.tourguide.gps;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+/**
+ * The {@code LatencyDistribution} interface draws the simulated latency of a
+ * {@link SimulatedGpsGateway} lookup.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * Draws a latency.
+     *
+     * @param random the random source
+     * @return the latency in milliseconds
+     */
+    long sampleMillis(SplittableRandom random);
+
+    /**
+     * Returns a distribution that always answers after the same latency.
+     *
+     * @param latency the latency
+     * @return the distribution
+     */
+    static LatencyDistribution fixed(Duration latency) {
+        long millis = latency.toMillis();
+        return random -> millis;
+    }
+
+    /**
+     * Returns a distribution uniform between two latencies.
+     *
+     * @param min the lowest latency
+     * @param max the highest latency
+     * @return the distribution
+     */
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long minMillis = min.toMillis();
+        long maxMillis = max.toMillis();
+        if (maxMillis < minMillis) {
+            throw new IllegalArgumentException("max must not be lower than min");
+        }
+        return random -> minMillis + random.nextLong(maxMillis - minMillis + 1);
+    }
+
+    /**
+     * Returns a log-normal distribution, whose long right tail models the occasional slow call of
+     * a remote service.
+     *
+     * @param median the median latency
+     * @param sigma  the standard deviation of the latency's logarithm; 0 always answers the median
+     * @return the distribution
+     */
+    static LatencyDistribution logNormal(Duration median, double sigma) {
+        double mu = Math.log(Math.max(1, median.toMillis()));
+        return random -> Math.round(Math.exp(mu + sigma * gaussian(random)));
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller transform; 1 - nextDouble() keeps the logarithm finite
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
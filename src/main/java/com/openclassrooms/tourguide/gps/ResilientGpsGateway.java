@@ -0,0 +1,207 @@
+package com.openclassrooms.tourguide.gps;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import lombok.extern.slf4j.Slf4j;
+
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+
+/**
+ * The {@code ResilientGpsGateway} class bounds the time spent waiting on another gateway.
+ *
+ * <p>Each lookup runs on its own virtual thread, and the caller gives up once the deadline expires
+ * with a {@link GpsTimeoutException}, so one slow call never holds a tracker slot for an unbounded
+ * time. An abandoned call is interrupted, so a delegate that blocks interruptibly releases its
+ * thread at once.</p>
+ *
+ * <p>When a hedge delay is set, a lookup still running after that delay is sent a second time and
+ * the first answer wins, which cuts the tail latency of a service whose slow calls are random; the
+ * losing call is interrupted. A first call failing before the hedge delay sends the hedge at once,
+ * and a hedged lookup only fails once both calls have failed. Batches fan every lookup out at once and wait for all
+ * of them under a single deadline; the users whose lookup failed or timed out are left out, logged
+ * at debug level and counted in {@link TourGuideMetrics}.</p>
+ */
+@Slf4j
+public class ResilientGpsGateway implements GpsGateway, AutoCloseable {
+
+    private final GpsGateway delegate;
+    private final Duration timeout;
+    private final Duration hedgeDelay;
+    private final TourGuideMetrics metrics;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Wraps a gateway.
+     *
+     * @param delegate   the gateway performing the lookups
+     * @param timeout    the deadline of a lookup, or of a whole batch; zero waits without limit
+     * @param hedgeDelay how long a lookup runs before a second one is sent; zero disables hedging
+     * @param metrics    the meters counting timeouts and hedged lookups
+     */
+    public ResilientGpsGateway(GpsGateway delegate, Duration timeout, Duration hedgeDelay, TourGuideMetrics metrics) {
+        this.delegate = delegate;
+        this.timeout = timeout;
+        this.hedgeDelay = hedgeDelay;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public VisitedLocation getUserLocation(UUID userId) {
+        CompletableFuture<VisitedLocation> lookup = lookup(userId);
+        try {
+            return timeout.isZero() ? lookup.join() : lookup.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            lookup.cancel(false);
+            metrics.gpsTimeouts().increment();
+            throw new GpsTimeoutException(userId, timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while looking up the location of user " + userId, e);
+        } catch (Exception e) {
+            throw unwrap(e);
+        }
+    }
+
+    @Override
+    public Map<UUID, VisitedLocation> getUserLocations(Collection<UUID> userIds) {
+        Map<UUID, CompletableFuture<VisitedLocation>> lookups = new LinkedHashMap<>();
+        userIds.forEach(userId -> lookups.putIfAbsent(userId, lookup(userId)));
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture[0]));
+        try {
+            if (timeout.isZero()) {
+                all.join();
+            } else {
+                all.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // individual failures and the deadline are handled below
+        }
+
+        Map<UUID, VisitedLocation> locations = new LinkedHashMap<>();
+        lookups.forEach((userId, lookup) -> {
+            if (!lookup.isDone()) {
+                lookup.cancel(false);
+                metrics.gpsTimeouts().increment();
+                log.debug("GPS lookup for user {} timed out after {}", userId, timeout);
+            } else if (lookup.isCompletedExceptionally()) {
+                metrics.gpsFailures().increment();
+                log.debug("GPS lookup for user {} failed: {}", userId, lookup.exceptionNow().getMessage());
+            } else {
+                locations.put(userId, lookup.join());
+            }
+        });
+        return locations;
+    }
+
+    /** Starts a lookup, hedged if a hedge delay is set. */
+    private CompletableFuture<VisitedLocation> lookup(UUID userId) {
+        Lookup lookup = new Lookup(userId);
+        lookup.send();
+        if (!hedgeDelay.isZero()) {
+            CompletableFuture.delayedExecutor(hedgeDelay.toMillis(), TimeUnit.MILLISECONDS, executor).execute(lookup::hedge);
+        }
+        return lookup.result;
+    }
+
+    /**
+     * The calls sent for one lookup. The result completes with the first answer, or fails once every
+     * call sent has failed and no hedge is left to send; either way the calls still running are
+     * interrupted.
+     */
+    private final class Lookup {
+
+        private final UUID userId;
+        private final CompletableFuture<VisitedLocation> result = new CompletableFuture<>();
+        private final List<Future<?>> calls = new ArrayList<>(2);
+        private int running;
+        private boolean hedgePending;
+
+        private Lookup(UUID userId) {
+            this.userId = userId;
+            this.hedgePending = !hedgeDelay.isZero();
+            result.whenComplete((location, failure) -> cancelCalls());
+        }
+
+        /** Sends the first call. */
+        private synchronized void send() {
+            running++;
+            calls.add(executor.submit(this::call));
+        }
+
+        /** Sends the hedge, unless the lookup is already over. */
+        private void hedge() {
+            synchronized (this) {
+                if (!hedgePending || result.isDone()) {
+                    return;
+                }
+                hedgePending = false;
+                running++;
+                calls.add(executor.submit(this::call));
+            }
+            metrics.gpsHedges().increment();
+        }
+
+        private void call() {
+            try {
+                result.complete(delegate.getUserLocation(userId));
+            } catch (RuntimeException e) {
+                failed(e);
+            }
+        }
+
+        /** Fails the lookup once no call is running, sending the hedge early if it is still due. */
+        private void failed(RuntimeException failure) {
+            boolean hedgeNow;
+            synchronized (this) {
+                running--;
+                if (running > 0) {
+                    return;
+                }
+                hedgeNow = hedgePending && !result.isDone();
+            }
+            if (hedgeNow) {
+                log.debug("GPS lookup for user {} failed, hedging at once: {}", userId, failure.getMessage());
+                hedge();
+            } else {
+                result.completeExceptionally(failure);
+            }
+        }
+
+        private synchronized void cancelCalls() {
+            hedgePending = false;
+            calls.forEach(call -> call.cancel(true));
+        }
+    }
+
+    private static RuntimeException unwrap(Exception e) {
+        Throwable cause = e instanceof CompletionException || e instanceof ExecutionException
+                ? e.getCause() : e;
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
+
+    /**
+     * Stops the lookup threads.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
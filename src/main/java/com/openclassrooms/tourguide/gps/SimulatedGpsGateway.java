@@ -0,0 +1,46 @@
+package com.openclassrooms.tourguide.gps;
+
+import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * The {@code SimulatedGpsGateway} class is a local stand-in for the GPS service. It answers random
+ * locations after a latency drawn from a configurable {@link LatencyDistribution}, so tracking can
+ * be exercised against a known latency profile without the third-party jar.
+ */
+public class SimulatedGpsGateway implements GpsGateway {
+
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private final LatencyDistribution latency;
+
+    /**
+     * Creates a stand-in answering with the given latency distribution.
+     *
+     * @param latency the latency distribution
+     */
+    public SimulatedGpsGateway(LatencyDistribution latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public VisitedLocation getUserLocation(UUID userId) {
+        SplittableRandom random = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+        long millis = latency.sampleMillis(random);
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while simulating a GPS lookup", e);
+            }
+        }
+        Location location = new Location(random.nextDouble(-MAX_LATITUDE, MAX_LATITUDE), random.nextDouble(-180, 180));
+        return new VisitedLocation(userId, location, new Date());
+    }
+}
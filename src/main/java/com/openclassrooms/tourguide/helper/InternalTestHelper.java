@@ -1,15 +1,37 @@
 package com.openclassrooms.tourguide.helper;
 
+import java.nio.file.Path;
+
 public class InternalTestHelper {
 
 	// Set this default up to 100,000 for testing
 	private static int internalUserNumber = 100;
-	
+	// seed of the generated users, or null for a different population on every start
+	private static Long internalUserSeed;
+	// snapshot the generated users are saved to and loaded back from, or null to always generate them
+	private static Path internalUserSnapshot;
+
 	public static void setInternalUserNumber(int internalUserNumber) {
 		InternalTestHelper.internalUserNumber = internalUserNumber;
 	}
-	
+
 	public static int getInternalUserNumber() {
 		return internalUserNumber;
 	}
+
+	public static void setInternalUserSeed(Long internalUserSeed) {
+		InternalTestHelper.internalUserSeed = internalUserSeed;
+	}
+
+	public static Long getInternalUserSeed() {
+		return internalUserSeed;
+	}
+
+	public static void setInternalUserSnapshot(Path internalUserSnapshot) {
+		InternalTestHelper.internalUserSnapshot = internalUserSnapshot;
+	}
+
+	public static Path getInternalUserSnapshot() {
+		return internalUserSnapshot;
+	}
 }
@@ -0,0 +1,78 @@
+package com.openclassrooms.tourguide.helper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * The {@code InternalUserGenerator} class generates the internal users used for testing, with a
+ * random history of visited locations.
+ *
+ * <p>Each user draws from its own {@link SplittableRandom}, seeded from the generator seed and the
+ * user index, so users are generated in parallel without sharing a random source, and the same
+ * seed always produces the same ids, names and locations, whatever the number of threads. Visit
+ * times are drawn relative to the generator's reference time.</p>
+ */
+public class InternalUserGenerator {
+
+    private static final int HISTORY_SIZE = 3;
+    private static final double MAX_LATITUDE = 85.05112878;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private final Instant referenceTime;
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed          the seed of every user's random source
+     * @param referenceTime the time visits are drawn back from, over the previous 30 days
+     */
+    public InternalUserGenerator(long seed, Instant referenceTime) {
+        this.seed = seed;
+        this.referenceTime = referenceTime;
+    }
+
+    /**
+     * Generates users in parallel.
+     *
+     * @param count the number of users
+     * @return the users, named {@code internalUser0} to {@code internalUser<count - 1>} in order
+     */
+    public List<User> generate(int count) {
+        return IntStream.range(0, count).parallel().mapToObj(this::generateUser).toList();
+    }
+
+    /**
+     * Generates the user with the given index.
+     *
+     * @param index the user index
+     * @return the user
+     */
+    public User generateUser(int index) {
+        SplittableRandom random = new SplittableRandom(seed ^ (index * GOLDEN_GAMMA));
+        String userName = "internalUser" + index;
+        User user = new User(randomUuid(random), userName, "000", userName + "@tourGuide.com");
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            Location location = new Location(random.nextDouble(-MAX_LATITUDE, MAX_LATITUDE), random.nextDouble(-180, 180));
+            Date time = Date.from(referenceTime.minus(Duration.ofDays(random.nextInt(30))));
+            user.addToVisitedLocations(new VisitedLocation(user.getUserId(), location, time));
+        }
+        return user;
+    }
+
+    /** Builds a version 4 UUID from the random source. */
+    private static UUID randomUuid(SplittableRandom random) {
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
@@ -0,0 +1,263 @@
+package com.openclassrooms.tourguide.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The {@code TourGuideMetrics} class holds the Micrometer meters recorded by the tracking and
+ * rewards services, so that a slow tracker cycle can be traced back to the dependency it waits on.
+ *
+ * <p>Meters exposed through the actuator {@code metrics} endpoint:</p>
+ * <ul>
+ *   <li>{@code tourguide.tracker.cycle} - duration of a {@code trackAllUserLocations} cycle.</li>
+ *   <li>{@code tourguide.tracker.users} - users tracked, and {@code tourguide.tracker.failures} - users that failed.</li>
+ *   <li>{@code tourguide.tracker.throughput} - users tracked per second during the last cycle.</li>
+ *   <li>{@code tourguide.tracker.progress} - users tracked so far in the running cycle,
+ *       {@code tourguide.tracker.overruns} - cycles that did not finish within the tracking interval, and
+ *       {@code tourguide.tracker.deferred} - users left for the next cycle at a cycle deadline.</li>
+ *   <li>{@code tourguide.gpsutil.location} - latency of {@code GpsUtil.getUserLocation}.</li>
+ *   <li>{@code tourguide.gpsutil.timeouts} - GPS lookups abandoned at their deadline, and
+ *       {@code tourguide.gpsutil.hedges} - GPS lookups sent a second time.</li>
+ *   <li>{@code tourguide.rewardcentral.points} - latency of {@code RewardCentral.getAttractionRewardPoints}.</li>
+ *   <li>{@code tourguide.trippricer.price} - latency of {@code TripPricer.getPrice}.</li>
+ *   <li>{@code tourguide.rewards.calculation} - time spent calculating one user's rewards.</li>
+ *   <li>{@code tourguide.rewards.movement} - tracked locations whose reward evaluation was run
+ *       ({@code outcome=evaluated}) or skipped because the user had not moved ({@code outcome=skipped}).</li>
+ *   <li>{@code tourguide.rewards.queue.depth} - users waiting for a reward worker,
+ *       {@code tourguide.rewards.queue.lag} - time an update waits for a worker,
+ *       {@code tourguide.rewards.queue.coalesced} - updates merged into one already waiting, and
+ *       {@code tourguide.rewards.queue.full} - updates whose publisher waited for a free slot.</li>
+ * </ul>
+ * <p>Every timer publishes a percentile histogram.</p>
+ */
+@Component
+public class TourGuideMetrics {
+
+    private final Timer trackerCycle;
+    private final Counter trackedUsers;
+    private final Counter trackingFailures;
+    private final AtomicLong lastCycleThroughput = new AtomicLong();
+    private final AtomicLong cycleProgress = new AtomicLong();
+    private final Counter trackerOverruns;
+    private final Counter deferredUsers;
+    private final Timer gpsLocation;
+    private final Counter gpsTimeouts;
+    private final Counter gpsHedges;
+    private final Counter gpsFailures;
+    private final Timer rewardPoints;
+    private final Timer tripPrice;
+    private final Timer rewardCalculation;
+    private final Counter rewardsEvaluated;
+    private final Counter rewardsSkipped;
+    private final AtomicLong rewardQueueDepth = new AtomicLong();
+    private final Timer rewardQueueLag;
+    private final Counter rewardQueueCoalesced;
+    private final Counter rewardQueueFull;
+
+    /**
+     * Registers the TourGuide meters in the given registry.
+     *
+     * @param registry the meter registry
+     */
+    public TourGuideMetrics(MeterRegistry registry) {
+        this.trackerCycle = timer(registry, "tourguide.tracker.cycle", "Duration of a tracking cycle over all users");
+        this.trackedUsers = Counter.builder("tourguide.tracker.users")
+                .description("Users tracked by tracking cycles")
+                .register(registry);
+        this.trackingFailures = Counter.builder("tourguide.tracker.failures")
+                .description("Users that failed to be tracked")
+                .register(registry);
+        Gauge.builder("tourguide.tracker.throughput", lastCycleThroughput, AtomicLong::get)
+                .description("Users tracked per second during the last tracking cycle")
+                .baseUnit("users/s")
+                .register(registry);
+        Gauge.builder("tourguide.tracker.progress", cycleProgress, AtomicLong::get)
+                .description("Users tracked so far in the running tracking cycle")
+                .baseUnit("users")
+                .register(registry);
+        this.trackerOverruns = Counter.builder("tourguide.tracker.overruns")
+                .description("Tracking cycles that did not finish within the tracking interval")
+                .register(registry);
+        this.deferredUsers = Counter.builder("tourguide.tracker.deferred")
+                .description("Users left for the next tracking cycle at a cycle deadline")
+                .register(registry);
+        this.gpsLocation = timer(registry, "tourguide.gpsutil.location", "Latency of GpsUtil.getUserLocation");
+        this.gpsTimeouts = Counter.builder("tourguide.gpsutil.timeouts")
+                .description("GPS lookups abandoned at their deadline")
+                .register(registry);
+        this.gpsHedges = Counter.builder("tourguide.gpsutil.hedges")
+                .description("GPS lookups sent a second time because the first one was slow")
+                .register(registry);
+        this.gpsFailures = Counter.builder("tourguide.gpsutil.failures")
+                .description("GPS lookups of a batch that failed")
+                .register(registry);
+        this.rewardPoints = timer(registry, "tourguide.rewardcentral.points", "Latency of RewardCentral.getAttractionRewardPoints");
+        this.tripPrice = timer(registry, "tourguide.trippricer.price", "Latency of TripPricer.getPrice");
+        this.rewardCalculation = timer(registry, "tourguide.rewards.calculation", "Time spent calculating one user's rewards");
+        this.rewardsEvaluated = movementCounter(registry, "evaluated");
+        this.rewardsSkipped = movementCounter(registry, "skipped");
+        Gauge.builder("tourguide.rewards.queue.depth", rewardQueueDepth, AtomicLong::get)
+                .description("Users waiting for a reward worker")
+                .register(registry);
+        this.rewardQueueLag = timer(registry, "tourguide.rewards.queue.lag", "Time a location update waits for a reward worker");
+        this.rewardQueueCoalesced = Counter.builder("tourguide.rewards.queue.coalesced")
+                .description("Location updates merged into an update already waiting for a reward worker")
+                .register(registry);
+        this.rewardQueueFull = Counter.builder("tourguide.rewards.queue.full")
+                .description("Location updates whose publisher waited for room in the reward queue")
+                .register(registry);
+    }
+
+    /**
+     * Creates metrics backed by a private in-memory registry, for services built outside Spring.
+     *
+     * @return standalone metrics
+     */
+    public static TourGuideMetrics standalone() {
+        return new TourGuideMetrics(new SimpleMeterRegistry());
+    }
+
+    private static Counter movementCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("tourguide.rewards.movement")
+                .description("Tracked locations by reward evaluation outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Records a completed tracking cycle.
+     *
+     * @param users       the number of users in the cycle
+     * @param failures    the number of users that failed to be tracked
+     * @param elapsedNanos the cycle duration in nanoseconds
+     */
+    public void recordTrackerCycle(int users, int failures, long elapsedNanos) {
+        recordTrackedUsers(users, failures);
+        recordTrackerCycleTime(users - failures, elapsedNanos);
+    }
+
+    /**
+     * Records the duration of a tracking cycle whose users were already counted step by step.
+     *
+     * @param users        the number of users tracked in the cycle
+     * @param elapsedNanos the cycle duration in nanoseconds
+     */
+    public void recordTrackerCycleTime(int users, long elapsedNanos) {
+        trackerCycle.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        lastCycleThroughput.set(elapsedNanos > 0 ? users * TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0);
+    }
+
+    /**
+     * Records the number of users tracked so far in the running tracking cycle.
+     *
+     * @param users the number of users
+     */
+    public void setTrackerProgress(long users) {
+        cycleProgress.set(users);
+    }
+
+    /** @return the counter of tracking cycles that overran their interval */
+    public Counter trackerOverruns() {
+        return trackerOverruns;
+    }
+
+    /** @return the counter of users left for the next cycle at a cycle deadline */
+    public Counter deferredUsers() {
+        return deferredUsers;
+    }
+
+    /**
+     * Records users tracked outside a full tracking cycle, such as one slot of the tracking schedule.
+     *
+     * @param users    the number of users
+     * @param failures the number of users that failed to be tracked
+     */
+    public void recordTrackedUsers(int users, int failures) {
+        trackedUsers.increment(users - failures);
+        trackingFailures.increment(failures);
+    }
+
+    /** @return the timer around {@code GpsUtil.getUserLocation} */
+    public Timer gpsLocation() {
+        return gpsLocation;
+    }
+
+    /** @return the counter of GPS lookups abandoned at their deadline */
+    public Counter gpsTimeouts() {
+        return gpsTimeouts;
+    }
+
+    /** @return the counter of hedged GPS lookups */
+    public Counter gpsHedges() {
+        return gpsHedges;
+    }
+
+    /** @return the counter of failed GPS lookups in batches */
+    public Counter gpsFailures() {
+        return gpsFailures;
+    }
+
+    /** @return the timer around {@code RewardCentral.getAttractionRewardPoints} */
+    public Timer rewardPoints() {
+        return rewardPoints;
+    }
+
+    /** @return the timer around {@code TripPricer.getPrice} */
+    public Timer tripPrice() {
+        return tripPrice;
+    }
+
+    /** @return the timer around one user's reward calculation */
+    public Timer rewardCalculation() {
+        return rewardCalculation;
+    }
+
+    /** @return the counter of tracked locations whose rewards were evaluated */
+    public Counter rewardsEvaluated() {
+        return rewardsEvaluated;
+    }
+
+    /** @return the counter of tracked locations whose reward evaluation was skipped */
+    public Counter rewardsSkipped() {
+        return rewardsSkipped;
+    }
+
+    /**
+     * Records the number of users waiting for a reward worker.
+     *
+     * @param depth the reward queue depth
+     */
+    public void setRewardQueueDepth(long depth) {
+        rewardQueueDepth.set(depth);
+    }
+
+    /** @return the timer of the time an update waits for a reward worker */
+    public Timer rewardQueueLag() {
+        return rewardQueueLag;
+    }
+
+    /** @return the counter of updates coalesced in the reward queue */
+    public Counter rewardQueueCoalesced() {
+        return rewardQueueCoalesced;
+    }
+
+    /** @return the counter of updates published while the reward queue was full */
+    public Counter rewardQueueFull() {
+        return rewardQueueFull;
+    }
+}
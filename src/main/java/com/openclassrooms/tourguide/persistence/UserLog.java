@@ -0,0 +1,650 @@
+package com.openclassrooms.tourguide.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import lombok.extern.slf4j.Slf4j;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+/**
+ * The {@code UserLog} class persists users, their visited locations and their rewards in an
+ * append-only log of memory-mapped segment files, without any external database.
+ *
+ * <h2>Layout</h2>
+ * <p>The log directory holds {@code segment-<n>.log} files. Each starts with a 16-byte header
+ * (magic, version, and the lowest segment number it covers) followed by records framed as
+ * {@code length, crc32, type, payload}. The active segment is pre-allocated and memory-mapped; the
+ * operating system writes its pages back, and {@link #flush()} forces them to disk. A record that
+ * does not fit rolls the log over to a new segment. On start, the newest segment is reopened and
+ * appended to when it ended cleanly, so restarts do not leave a mostly empty segment behind.</p>
+ *
+ * <h2>Concurrency</h2>
+ * <p>The log has a single writer position, so appends are serialized by one lock. Each frame is
+ * encoded and checksummed by the calling thread first, and the lock only covers the bounds check and
+ * the copy of the finished frame, a few dozen bytes, into the mapping. This keeps the tracker's
+ * location appends short, but the log caps the total append rate of a node; a node that outgrows it
+ * would need one log per user repository shard.</p>
+ *
+ * <h2>Recovery</h2>
+ * <p>{@link #replay(Visitor)} maps every segment read-only and decodes records straight from the
+ * mappings. Replay stops at the first empty or corrupt frame of a segment, which drops a record
+ * torn by a crash.</p>
+ *
+ * <h2>Compaction</h2>
+ * <p>{@link #compact()} folds all sealed segments into the users they describe, applying the
+ * location history retention and the one-reward-per-attraction rule, and rewrites them as a single
+ * segment that covers the range. The compacted file replaces the newest sealed segment with an
+ * atomic rename before the older ones are deleted; if a crash happens in between, its header tells
+ * recovery to skip the segments it already covers.</p>
+ */
+@Slf4j
+public class UserLog implements Closeable {
+
+    /** Default size of a memory-mapped segment. */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int MAGIC = 0x54474C47;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int FRAME_OVERHEAD = 9;
+
+    private static final byte USER = 1;
+    private static final byte LOCATION = 2;
+    private static final byte REWARD = 3;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    /** Number of the active segment. */
+    private long activeSegment;
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeBuffer;
+    private ScheduledExecutorService maintenance;
+
+    /**
+     * Receives the records of the log in the order they were appended.
+     */
+    public interface Visitor {
+
+        /** Called for a user record. */
+        void user(UUID userId, String userName, String phoneNumber, String emailAddress);
+
+        /** Called for a visited location record. */
+        void location(UUID userId, double latitude, double longitude, long timeMillis);
+
+        /** Called for a reward record. */
+        void reward(UUID userId, String attractionName, String city, String state, double attractionLatitude,
+                    double attractionLongitude, double latitude, double longitude, long timeMillis, int rewardPoints);
+    }
+
+    /**
+     * Opens the log in the given directory, creating it if needed. Appends go to the newest segment
+     * if it ended cleanly and has room left, or else to a new segment following the existing ones.
+     *
+     * @param directory   the log directory
+     * @param segmentSize the size of each memory-mapped segment, in bytes
+     */
+    public UserLog(Path directory, int segmentSize) {
+        if (segmentSize < HEADER_SIZE + 1024) {
+            throw new IllegalArgumentException("segmentSize is too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> leftovers = Files.list(directory)) {
+                for (Path leftover : leftovers.filter(p -> p.getFileName().toString().endsWith(".compact")).toList()) {
+                    Files.delete(leftover);
+                }
+            }
+            TreeMap<Long, Path> segments = segments();
+            if (segments.isEmpty()) {
+                openSegment(1);
+            } else if (!reopenSegment(segments.lastKey(), segments.lastEntry().getValue())) {
+                openSegment(segments.lastKey() + 1);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open user log in " + directory, e);
+        }
+        log.info("User log opened in {} (segment {})", directory, activeSegment);
+    }
+
+    /**
+     * Flushes the log to disk and starts compacting it at the given intervals.
+     *
+     * @param flushInterval      how often the active segment is forced to disk
+     * @param compactionInterval how often sealed segments are compacted
+     */
+    public void scheduleMaintenance(Duration flushInterval, Duration compactionInterval) {
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "user-log-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::compactQuietly,
+                compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Appends a user record.
+     *
+     * @param user the user
+     */
+    public void appendUser(User user) {
+        byte[] userName = utf8(user.getUserName());
+        byte[] phone = utf8(user.getPhoneNumber());
+        byte[] email = utf8(user.getEmailAddress());
+        ByteBuffer frame = beginFrame(USER, 16 + 6 + userName.length + phone.length + email.length);
+        putUuid(frame, user.getUserId());
+        putString(frame, userName);
+        putString(frame, phone);
+        putString(frame, email);
+        append(frame);
+    }
+
+    /**
+     * Appends a visited location record.
+     *
+     * @param visitedLocation the visited location
+     */
+    public void appendLocation(VisitedLocation visitedLocation) {
+        ByteBuffer frame = beginFrame(LOCATION, 16 + 24);
+        putUuid(frame, visitedLocation.userId);
+        putVisit(frame, visitedLocation);
+        append(frame);
+    }
+
+    /**
+     * Appends a reward record.
+     *
+     * @param userId     the rewarded user
+     * @param userReward the reward
+     */
+    public void appendReward(UUID userId, UserReward userReward) {
+        Attraction attraction = userReward.attraction;
+        byte[] name = utf8(attraction.attractionName);
+        byte[] city = utf8(attraction.city);
+        byte[] state = utf8(attraction.state);
+        ByteBuffer frame = beginFrame(REWARD, 16 + 6 + name.length + city.length + state.length + 16 + 24 + 4);
+        putUuid(frame, userId);
+        putString(frame, name);
+        putString(frame, city);
+        putString(frame, state);
+        frame.putDouble(attraction.latitude);
+        frame.putDouble(attraction.longitude);
+        putVisit(frame, userReward.visitedLocation);
+        frame.putInt(userReward.getRewardPoints());
+        append(frame);
+    }
+
+    /**
+     * Indicates whether the log holds no record. Only the first frame header of each live segment is
+     * read; no record is decoded.
+     *
+     * @return {@code true} if nothing was ever appended, or everything was deleted
+     */
+    public boolean isEmpty() {
+        try {
+            for (Path segment : liveSegments().values()) {
+                try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                    ByteBuffer length = ByteBuffer.allocate(4);
+                    if (channel.read(length, HEADER_SIZE) == 4 && length.getInt(0) > 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read user log in " + directory, e);
+        }
+    }
+
+    /**
+     * Replays every record of the log, oldest first.
+     *
+     * @param visitor the record visitor
+     */
+    public void replay(Visitor visitor) {
+        replay(visitor, Long.MAX_VALUE);
+    }
+
+    /**
+     * Rebuilds the users described by the log, with their retained history and their rewards.
+     *
+     * @param catalog attractions by name, used so that recovered rewards point to the current catalog
+     * @return the users, in the order they were first recorded
+     */
+    public List<User> loadUsers(Map<String, Attraction> catalog) {
+        return fold(catalog, Long.MAX_VALUE);
+    }
+
+    /**
+     * Forces the active segment to disk. The lock is only held to read the active mapping, so
+     * appends go on while its pages are written back.
+     */
+    public void flush() {
+        MappedByteBuffer buffer;
+        appendLock.lock();
+        try {
+            buffer = activeBuffer;
+        } finally {
+            appendLock.unlock();
+        }
+        buffer.force();
+    }
+
+    /**
+     * Folds every sealed segment into a single compacted segment. Appends continue on the active
+     * segment while the sealed ones are rewritten.
+     *
+     * @return {@code true} if segments were compacted
+     */
+    public boolean compact() {
+        compactionLock.lock();
+        try {
+            long active;
+            appendLock.lock();
+            try {
+                active = activeSegment;
+            } finally {
+                appendLock.unlock();
+            }
+            TreeMap<Long, Path> sealed = new TreeMap<>(liveSegments().headMap(active));
+            if (sealed.size() < 2) {
+                return false;
+            }
+            long first = sealed.firstKey();
+            long last = sealed.lastKey();
+            List<User> users = fold(Map.of(), active);
+
+            Path target = sealed.get(last);
+            Path compacted = target.resolveSibling(target.getFileName() + ".compact");
+            writeCompacted(compacted, first, users);
+            Files.move(compacted, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (Path older : sealed.headMap(last).values()) {
+                Files.deleteIfExists(older);
+            }
+            log.info("Compacted user log segments {} to {} ({} users)", first, last, users.size());
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot compact user log in " + directory, e);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the active segment and stops the maintenance tasks.
+     */
+    @Override
+    public void close() {
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+        }
+        appendLock.lock();
+        try {
+            activeBuffer.force();
+            activeChannel.close();
+        } catch (IOException e) {
+            log.warn("Error while closing user log: {}", e.getMessage());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Error while flushing user log: {}", e.getMessage());
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            log.warn("Error while compacting user log: {}", e.getMessage());
+        }
+    }
+
+    /** Allocates a frame for a payload of the given length, positioned after its type. */
+    private ByteBuffer beginFrame(byte type, int payloadLength) {
+        if (FRAME_OVERHEAD + payloadLength > segmentSize - HEADER_SIZE) {
+            throw new IllegalArgumentException("Record too large for a segment: " + payloadLength);
+        }
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_OVERHEAD + payloadLength);
+        frame.putInt(payloadLength + 1).putInt(0).put(type);
+        return frame;
+    }
+
+    /** Checksums a complete frame outside the lock, then copies it into the active segment. */
+    private void append(ByteBuffer frame) {
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), 8, frame.position() - 8);
+        frame.putInt(4, (int) crc.getValue());
+        frame.flip();
+        appendLock.lock();
+        try {
+            if (activeBuffer.remaining() < frame.remaining() + 4) {
+                roll();
+            }
+            activeBuffer.put(frame);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void roll() {
+        try {
+            activeBuffer.force();
+            activeChannel.close();
+            openSegment(activeSegment + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot roll user log in " + directory, e);
+        }
+    }
+
+    /**
+     * Makes an existing segment the active one again, positioned after its last record, if it is a
+     * full-size segment that ends cleanly with room left.
+     */
+    private boolean reopenSegment(long number, Path path) throws IOException {
+        if (Files.size(path) != segmentSize) {
+            return false;
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        int end = buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION ? cleanEnd(buffer) : -1;
+        if (end < 0 || segmentSize - end < 1024) {
+            channel.close();
+            return false;
+        }
+        buffer.position(end);
+        activeChannel = channel;
+        activeBuffer = buffer;
+        activeSegment = number;
+        return true;
+    }
+
+    /** Returns the offset following the last record of a segment, or -1 if its last record is torn. */
+    private static int cleanEnd(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        int position = HEADER_SIZE;
+        while (buffer.limit() - position >= 4) {
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                return position;
+            }
+            if (length < 0 || length > buffer.limit() - position - 8) {
+                return -1;
+            }
+            crc.reset();
+            crc.update(buffer.duplicate().position(position + 8).limit(position + 8 + length));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                return -1;
+            }
+            position += 8 + length;
+        }
+        return position;
+    }
+
+    private void openSegment(long number) throws IOException {
+        Path path = segmentPath(number);
+        activeChannel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeBuffer = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        activeBuffer.putInt(MAGIC).putInt(VERSION).putLong(number);
+        activeSegment = number;
+    }
+
+    private void writeCompacted(Path path, long coveredFrom, List<User> users) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(coveredFrom);
+            CRC32 crc = new CRC32();
+            for (User user : users) {
+                byte[] userName = utf8(user.getUserName());
+                byte[] phone = utf8(user.getPhoneNumber());
+                byte[] email = utf8(user.getEmailAddress());
+                ByteBuffer record = ByteBuffer.allocate(16 + 6 + userName.length + phone.length + email.length);
+                putUuid(record, user.getUserId());
+                putString(record, userName);
+                putString(record, phone);
+                putString(record, email);
+                buffer = writeFrame(channel, buffer, crc, USER, record.flip());
+                for (VisitedLocation visitedLocation : user.getVisitedLocations()) {
+                    record = ByteBuffer.allocate(40);
+                    putUuid(record, user.getUserId());
+                    putVisit(record, visitedLocation);
+                    buffer = writeFrame(channel, buffer, crc, LOCATION, record.flip());
+                }
+                for (UserReward reward : user.getUserRewards()) {
+                    Attraction attraction = reward.attraction;
+                    byte[] name = utf8(attraction.attractionName);
+                    byte[] city = utf8(attraction.city);
+                    byte[] state = utf8(attraction.state);
+                    record = ByteBuffer.allocate(16 + 6 + name.length + city.length + state.length + 16 + 24 + 4);
+                    putUuid(record, user.getUserId());
+                    putString(record, name);
+                    putString(record, city);
+                    putString(record, state);
+                    record.putDouble(attraction.latitude).putDouble(attraction.longitude);
+                    putVisit(record, reward.visitedLocation);
+                    record.putInt(reward.getRewardPoints());
+                    buffer = writeFrame(channel, buffer, crc, REWARD, record.flip());
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static ByteBuffer writeFrame(FileChannel channel, ByteBuffer buffer, CRC32 crc, byte type, ByteBuffer payload)
+            throws IOException {
+        int frameLength = FRAME_OVERHEAD + payload.remaining();
+        if (buffer.remaining() < frameLength) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        crc.reset();
+        crc.update(type);
+        crc.update(payload.duplicate());
+        buffer.putInt(payload.remaining() + 1).putInt((int) crc.getValue()).put(type).put(payload);
+        return buffer;
+    }
+
+    /** Replays the live segments numbered below {@code before}. */
+    private void replay(Visitor visitor, long before) {
+        try {
+            for (Map.Entry<Long, Path> segment : liveSegments().headMap(before).entrySet()) {
+                replaySegment(segment.getValue(), visitor);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read user log in " + directory, e);
+        }
+    }
+
+    private void replaySegment(Path path, Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= FRAME_OVERHEAD) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.duplicate().limit(start + 8 + length));
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("Corrupt record in {} at offset {}, skipping the rest of the segment", path.getFileName(), start);
+                    break;
+                }
+                byte type = buffer.get();
+                decode(type, buffer, visitor);
+                buffer.position(start + 8 + length);
+            }
+        }
+    }
+
+    private static void decode(byte type, ByteBuffer buffer, Visitor visitor) {
+        UUID userId = new UUID(buffer.getLong(), buffer.getLong());
+        switch (type) {
+            case USER -> visitor.user(userId, getString(buffer), getString(buffer), getString(buffer));
+            case LOCATION -> visitor.location(userId, buffer.getDouble(), buffer.getDouble(), buffer.getLong());
+            case REWARD -> visitor.reward(userId, getString(buffer), getString(buffer), getString(buffer),
+                    buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getLong(),
+                    buffer.getInt());
+            default -> log.warn("Unknown user log record type {}", type);
+        }
+    }
+
+    /** Rebuilds the users described by the live segments numbered below {@code before}. */
+    private List<User> fold(Map<String, Attraction> catalog, long before) {
+        Map<UUID, User> users = new LinkedHashMap<>();
+        replay(new Visitor() {
+            @Override
+            public void user(UUID userId, String userName, String phoneNumber, String emailAddress) {
+                users.putIfAbsent(userId, new User(userId, userName, phoneNumber, emailAddress));
+            }
+
+            @Override
+            public void location(UUID userId, double latitude, double longitude, long timeMillis) {
+                User user = users.get(userId);
+                if (user != null) {
+                    user.addToVisitedLocations(new VisitedLocation(userId, new Location(latitude, longitude), new Date(timeMillis)));
+                }
+            }
+
+            @Override
+            public void reward(UUID userId, String attractionName, String city, String state, double attractionLatitude,
+                               double attractionLongitude, double latitude, double longitude, long timeMillis, int rewardPoints) {
+                User user = users.get(userId);
+                if (user != null) {
+                    Attraction attraction = catalog.get(attractionName);
+                    if (attraction == null) {
+                        attraction = new Attraction(attractionName, city, state, attractionLatitude, attractionLongitude);
+                    }
+                    VisitedLocation visitedLocation = new VisitedLocation(userId, new Location(latitude, longitude), new Date(timeMillis));
+                    user.addUserReward(new UserReward(visitedLocation, attraction, rewardPoints));
+                }
+            }
+        }, before);
+        return new ArrayList<>(users.values());
+    }
+
+    /** Returns the segment files by number, without the ones superseded by a compacted segment. */
+    private TreeMap<Long, Path> liveSegments() throws IOException {
+        TreeMap<Long, Path> segments = segments();
+        for (Map.Entry<Long, Path> segment : new ArrayList<>(segments.entrySet())) {
+            if (!segments.containsKey(segment.getKey())) {
+                continue;
+            }
+            long coveredFrom = coveredFrom(segment.getValue());
+            if (coveredFrom < segment.getKey()) {
+                segments.subMap(coveredFrom, segment.getKey()).clear();
+            }
+        }
+        return segments;
+    }
+
+    private TreeMap<Long, Path> segments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.startsWith("segment-") && name.endsWith(".log")) {
+                    segments.put(Long.parseLong(name.substring(8, name.length() - 4)), path);
+                }
+            });
+        }
+        return segments;
+    }
+
+    private static long coveredFrom(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a user log segment: " + path);
+            }
+            return header.getLong();
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("segment-%012d.log", number));
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static void putVisit(ByteBuffer buffer, VisitedLocation visitedLocation) {
+        buffer.putDouble(visitedLocation.location.latitude)
+                .putDouble(visitedLocation.location.longitude)
+                .putLong(visitedLocation.timeVisited.getTime());
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("String too long for the user log: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
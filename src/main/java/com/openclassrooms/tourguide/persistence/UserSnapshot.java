@@ -0,0 +1,178 @@
+package com.openclassrooms.tourguide.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * The {@code UserSnapshot} class saves a population of users, with their visited locations, to a
+ * binary file and loads it back, so that test environments can start with the same users without
+ * generating them again.
+ *
+ * <p>The file holds a header (magic, version, generator seed, user count) followed by, for each
+ * user, its id,
+ * user name, phone number, email address and visited locations. It is written to a temporary file
+ * that is renamed over the target, and read back through a read-only memory mapping. Rewards are
+ * not saved; they are calculated again by the rewards service. The seed and count in the header let
+ * callers check, with {@link #readHeader(Path)}, that a snapshot still matches the population they
+ * are configured for before loading it.</p>
+ */
+public final class UserSnapshot {
+
+    private static final int MAGIC = 0x54475553;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 20;
+
+    private UserSnapshot() {
+    }
+
+    /**
+     * Writes the users to a snapshot file, replacing any previous one.
+     *
+     * @param path  the snapshot file
+     * @param users the users to save
+     * @param seed  the seed the users were generated from
+     */
+    public static void write(Path path, Collection<User> users, long seed) {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024);
+                buffer.putInt(MAGIC).putInt(VERSION).putLong(seed).putInt(users.size());
+                for (User user : users) {
+                    byte[] userName = utf8(user.getUserName());
+                    byte[] phone = utf8(user.getPhoneNumber());
+                    byte[] email = utf8(user.getEmailAddress());
+                    List<VisitedLocation> visitedLocations = user.getVisitedLocations();
+                    int length = 16 + 12 + userName.length + phone.length + email.length + 4 + 24 * visitedLocations.size();
+                    if (buffer.remaining() < length) {
+                        drain(channel, buffer);
+                        if (buffer.capacity() < length) {
+                            buffer = ByteBuffer.allocate(length);
+                        }
+                    }
+                    buffer.putLong(user.getUserId().getMostSignificantBits()).putLong(user.getUserId().getLeastSignificantBits());
+                    buffer.putInt(userName.length).put(userName);
+                    buffer.putInt(phone.length).put(phone);
+                    buffer.putInt(email.length).put(email);
+                    buffer.putInt(visitedLocations.size());
+                    for (VisitedLocation visitedLocation : visitedLocations) {
+                        buffer.putDouble(visitedLocation.location.latitude)
+                                .putDouble(visitedLocation.location.longitude)
+                                .putLong(visitedLocation.timeVisited.getTime());
+                    }
+                }
+                drain(channel, buffer);
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write user snapshot " + path, e);
+        }
+    }
+
+    /**
+     * Reads the header of a snapshot file, without its users.
+     *
+     * @param path the snapshot file
+     * @return the seed and user count the snapshot was written with
+     * @throws UncheckedIOException if the file cannot be read or is not a snapshot of this version
+     */
+    public static Header readHeader(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // fill the header
+            }
+            return header(buffer.flip(), path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read user snapshot " + path, e);
+        }
+    }
+
+    /**
+     * Reads the users of a snapshot file.
+     *
+     * @param path the snapshot file
+     * @return the users, in the order they were written
+     * @throws UncheckedIOException if the file cannot be read, is not a snapshot of this version or
+     *                              is truncated
+     */
+    public static List<User> read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int count = header(buffer, path).userCount();
+            List<User> users = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                UUID userId = new UUID(buffer.getLong(), buffer.getLong());
+                User user = new User(userId, getString(buffer), getString(buffer), getString(buffer));
+                int visits = buffer.getInt();
+                for (int v = 0; v < visits; v++) {
+                    Location location = new Location(buffer.getDouble(), buffer.getDouble());
+                    user.addToVisitedLocations(new VisitedLocation(userId, location, new Date(buffer.getLong())));
+                }
+                users.add(user);
+            }
+            return users;
+        } catch (BufferUnderflowException e) {
+            throw new UncheckedIOException(new IOException("Truncated user snapshot: " + path, e));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read user snapshot " + path, e);
+        }
+    }
+
+    private static Header header(ByteBuffer buffer, Path path) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a user snapshot: " + path);
+        }
+        return new Header(buffer.getLong(), buffer.getInt());
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The header of a snapshot file.
+     *
+     * @param seed      the seed the users were generated from
+     * @param userCount the number of users in the snapshot
+     */
+    public record Header(long seed, int userCount) {
+    }
+}
@@ -0,0 +1,191 @@
+package com.openclassrooms.tourguide.service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * The {@code RewardEngine} class calculates rewards for tracked locations on its own pool of
+ * workers, so reward calculation never competes with GPS lookups for the tracking threads.
+ *
+ * <p>Location updates are published to a bounded queue. A user appears in the queue at most once:
+ * an update published while an earlier one is still waiting replaces its location with the newer
+ * one. Nothing is lost, since the movement check measures from the user's last evaluated location
+ * and the evaluation covers every location recorded since. When the queue is full, publishers wait for a free slot, so a backlog slows tracking down
+ * instead of growing without bound.</p>
+ *
+ * <p>Every publisher gets a future completed once the rewards of its update are calculated, so a
+ * caller that must see up-to-date rewards can wait for its own user without waiting for the whole
+ * queue. Coalesced updates share one future.</p>
+ *
+ * <p>The queue depth, the time an update waits before a worker picks it up, coalesced updates and
+ * publishers that found the queue full are recorded in {@link TourGuideMetrics}.</p>
+ */
+@Slf4j
+public class RewardEngine implements AutoCloseable {
+
+    private final RewardsService rewardsService;
+    private final TourGuideMetrics metrics;
+    private final BlockingQueue<UUID> queue;
+    private final ConcurrentMap<UUID, Update> pending = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+
+    /** Updates published and not yet fully processed, guarded by {@code this} for {@link #awaitIdle}. */
+    private int outstanding;
+
+    /**
+     * Starts the reward workers.
+     *
+     * @param rewardsService the service calculating the rewards
+     * @param workerCount    the number of reward workers
+     * @param capacity       the maximum number of users waiting for their rewards
+     * @param metrics        the meters recording the queue
+     */
+    public RewardEngine(RewardsService rewardsService, int workerCount, int capacity, TourGuideMetrics metrics) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("workerCount must be at least 1");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.rewardsService = rewardsService;
+        this.metrics = metrics;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "reward-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+        log.info("Reward engine started ({} workers, capacity {})", workerCount, capacity);
+    }
+
+    /**
+     * Publishes a tracked location. Waits while the queue is full.
+     *
+     * @param user    the tracked user
+     * @param current the tracked location
+     * @return a future completed once the user's rewards are calculated, or completed exceptionally
+     *         if the calculation failed or the update was dropped
+     */
+    public CompletableFuture<Void> publish(User user, VisitedLocation current) {
+        boolean[] created = new boolean[1];
+        Update published = pending.compute(user.getUserId(), (userId, update) -> {
+            if (update == null) {
+                created[0] = true;
+                return new Update(user, current, System.nanoTime(), new CompletableFuture<>());
+            }
+            return new Update(user, current, update.publishedNanos(), update.calculated());
+        });
+        if (!created[0]) {
+            metrics.rewardQueueCoalesced().increment();
+            return published.calculated();
+        }
+        synchronized (this) {
+            outstanding++;
+        }
+        try {
+            if (!queue.offer(user.getUserId())) {
+                metrics.rewardQueueFull().increment();
+                queue.put(user.getUserId());
+            }
+            metrics.setRewardQueueDepth(queue.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.remove(user.getUserId());
+            done();
+            published.calculated().completeExceptionally(e);
+            log.warn("Interrupted before the rewards of user '{}' were queued", user.getUserName());
+        }
+        return published.calculated();
+    }
+
+    /**
+     * Waits until every published update has been processed.
+     *
+     * @param timeout the maximum time to wait
+     * @return {@code true} if the engine is idle, {@code false} if the timeout expired first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (outstanding > 0) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of users waiting for a worker.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            UUID userId;
+            try {
+                userId = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            metrics.setRewardQueueDepth(queue.size());
+            Update update = pending.remove(userId);
+            try {
+                metrics.rewardQueueLag().record(System.nanoTime() - update.publishedNanos(), TimeUnit.NANOSECONDS);
+                rewardsService.calculateRewardsIfMoved(update.user(), update.current());
+                update.calculated().complete(null);
+            } catch (RuntimeException e) {
+                update.calculated().completeExceptionally(e);
+                log.error("Failed to calculate rewards for user '{}': {}", update.user().getUserName(), e.getMessage(), e);
+            } finally {
+                done();
+            }
+        }
+    }
+
+    private synchronized void done() {
+        if (--outstanding == 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Stops the workers. Updates still queued are dropped, and their futures cancelled.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        if (!queue.isEmpty()) {
+            log.warn("Reward engine stopped with {} users still queued", queue.size());
+        }
+        pending.values().forEach(update -> update.calculated().cancel(false));
+    }
+
+    private record Update(User user, VisitedLocation current, long publishedNanos, CompletableFuture<Void> calculated) {
+    }
+}
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 
 import java.util.stream.Collectors;
 
@@ -11,13 +12,23 @@ import java.util.stream.Collectors;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.Timer;
+
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.attraction.AttractionIndex;
+import com.openclassrooms.tourguide.attraction.DistanceKernel;
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+import com.openclassrooms.tourguide.persistence.UserLog;
+import com.openclassrooms.tourguide.user.LocationHistory;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
 
@@ -29,7 +40,6 @@ import com.openclassrooms.tourguide.user.UserReward;
 @Slf4j
 @Service
 public class RewardsService {
-    private static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
     private final ExecutorService executorService;
 
 
@@ -39,46 +49,200 @@ public class RewardsService {
     public int proximityBuffer = defaultProximityBuffer;
     private int attractionProximityRange = 200;
     private final GpsUtil gpsUtil;
-    private final RewardCentral rewardsCentral;
+    private final RewardPointsCache rewardPointsCache;
+
+    /** Spatial index over the attraction catalog, loaded lazily from {@link GpsUtil}. */
+    private volatile AttractionIndex attractionIndex;
+    private final Object attractionIndexLock = new Object();
 
     /**
-     * Constructor to initialize the RewardsService.
+     * Incremented whenever the catalog or the proximity buffer changes, which invalidates
+     * every user's rewards watermark and forces a full re-scan of their history.
+     */
+    private final AtomicLong evaluationEpoch = new AtomicLong();
+
+    /** Meters recorded for reward calculations; replaced by the shared instance under Spring. */
+    private TourGuideMetrics metrics = TourGuideMetrics.standalone();
+
+    /** Distance in miles under which a new location does not trigger a reward evaluation; zero always evaluates. */
+    private double movementThreshold;
+
+    /** Log that granted rewards are appended to, or {@code null} when persistence is disabled. */
+    private UserLog userLog;
+
+    /**
+     * Constructor to initialize the RewardsService with a default reward points cache.
      *
      * @param gpsUtil        Service to retrieve GPS-based attraction data
      * @param rewardCentral  Service to retrieve attraction reward points
      * @param executorService Thread pool executor for asynchronous tasks
      */
     public RewardsService(GpsUtil gpsUtil, RewardCentral rewardCentral,ExecutorService executorService) {
+        this(gpsUtil, new RewardPointsCache(rewardCentral), executorService);
+    }
+
+    /**
+     * Constructor to initialize the RewardsService.
+     *
+     * @param gpsUtil           Service to retrieve GPS-based attraction data
+     * @param rewardPointsCache Cache in front of the service retrieving attraction reward points
+     * @param executorService   Thread pool executor for asynchronous tasks
+     */
+    @Autowired
+    public RewardsService(GpsUtil gpsUtil, RewardPointsCache rewardPointsCache, ExecutorService executorService) {
         this.gpsUtil = gpsUtil;
-        this.rewardsCentral = rewardCentral;
+        this.rewardPointsCache = rewardPointsCache;
         this.executorService = executorService;
     }
 
+    /**
+     * Sets the meters recorded for reward calculations and RewardCentral calls.
+     *
+     * @param metrics the shared TourGuide metrics
+     */
+    @Autowired
+    public void setMetrics(TourGuideMetrics metrics) {
+        this.metrics = metrics;
+        rewardPointsCache.setMetrics(metrics);
+    }
+
+    /**
+     * Sets the log that granted rewards are appended to.
+     *
+     * @param userLog the user log, only present when persistence is enabled
+     */
+    @Autowired(required = false)
+    public void setUserLog(UserLog userLog) {
+        this.userLog = userLog;
+    }
+
+    /**
+     * Sets the distance under which a newly tracked location does not trigger a reward evaluation.
+     *
+     * @param movementThreshold the threshold in miles, from {@code rewards.movement-threshold-miles}; zero always evaluates
+     */
+    @Value("${rewards.movement-threshold-miles:0}")
+    public void setMovementThreshold(double movementThreshold) {
+        if (movementThreshold < 0) {
+            throw new IllegalArgumentException("rewards.movement-threshold-miles must not be negative");
+        }
+        this.movementThreshold = movementThreshold;
+    }
+
     /**
      * Resets the proximity buffer to its default value.
      */
     public void setDefaultProximityBuffer() {
-        proximityBuffer = defaultProximityBuffer;
+        setProximityBuffer(defaultProximityBuffer);
     }
 
     /**
-     * Calculates rewards for a given user based on their visited locations and nearby attractions.
+     * Sets the proximity buffer, in miles, used to decide whether a visited location earns a reward.
      *
-     * @param user The user for whom rewards should be calculated.
+     * @param proximityBuffer the new proximity buffer
      */
-    public synchronized void calculateRewards(User user) {
-        List<VisitedLocation> userLocations = user.getVisitedLocations();
-        List<Attraction> attractions = gpsUtil.getAttractions();
+    public void setProximityBuffer(int proximityBuffer) {
+        this.proximityBuffer = proximityBuffer;
+        evaluationEpoch.incrementAndGet();
+    }
 
-        for (VisitedLocation visitedLocation : userLocations) {
-            for (Attraction attraction : attractions) {
-                if (user.getUserRewards().stream().filter(r -> r.attraction.attractionName.equals(attraction.attractionName)).count() == 0) {
-                    if (nearAttraction(visitedLocation, attraction)) {
-                        user.addUserReward(new UserReward(visitedLocation, attraction, getRewardPoints(attraction, user)));
-                    }
+    /**
+     * Returns the current evaluation epoch. Watermarks recorded under an older epoch are ignored.
+     *
+     * @return the evaluation epoch
+     */
+    public long getEvaluationEpoch() {
+        return evaluationEpoch.get();
+    }
+
+    /**
+     * Returns the spatial index over the attraction catalog, loading it from {@link GpsUtil} on first use.
+     *
+     * @return the attraction index shared by reward and nearby-attraction lookups.
+     */
+    public AttractionIndex getAttractionIndex() {
+        AttractionIndex index = attractionIndex;
+        if (index == null) {
+            synchronized (attractionIndexLock) {
+                index = attractionIndex;
+                if (index == null) {
+                    index = new AttractionIndex(gpsUtil.getAttractions());
+                    attractionIndex = index;
                 }
             }
         }
+        return index;
+    }
+
+    /**
+     * Reloads the attraction catalog from {@link GpsUtil} and rebuilds the spatial index.
+     */
+    public void refreshAttractions() {
+        synchronized (attractionIndexLock) {
+            attractionIndex = new AttractionIndex(gpsUtil.getAttractions());
+            evaluationEpoch.incrementAndGet();
+        }
+    }
+
+    /**
+     * Calculates rewards for a given user based on their visited locations and nearby attractions.
+     * Only the locations added since the previous evaluation are processed.
+     * <p>
+     * The calculation is serialized per user, so different users are processed in parallel.
+     * </p>
+     *
+     * @param user The user for whom rewards should be calculated.
+     */
+    public void calculateRewards(User user) {
+        AttractionIndex index = getAttractionIndex();
+        user.getRewardsLock().lock();
+        try {
+            collectRewards(user, index, false);
+        } finally {
+            user.getRewardsLock().unlock();
+        }
+    }
+
+    /**
+     * Calculates rewards for a user after a new location was tracked, unless the user is still
+     * within the movement threshold of the location their rewards were last evaluated at and the
+     * catalog and proximity buffer are unchanged since that evaluation.
+     * <p>
+     * The distance is measured from the last evaluated location rather than from the previous
+     * fix, so many small steps that add up past the threshold still trigger an evaluation. A
+     * skipped location is not lost: it stays after the user's rewards watermark and is evaluated
+     * with the next location that triggers an evaluation.
+     * </p>
+     *
+     * @param user    The user for whom rewards should be calculated.
+     * @param current The newly tracked location.
+     * @return {@code true} if the rewards were evaluated, {@code false} if the evaluation was skipped.
+     */
+    public boolean calculateRewardsIfMoved(User user, VisitedLocation current) {
+        Location evaluated = movementThreshold > 0 ? user.getRewardsLocation(evaluationEpoch.get()) : null;
+        if (evaluated != null && getDistance(evaluated, current.location) < movementThreshold) {
+            metrics.rewardsSkipped().increment();
+            return false;
+        }
+        metrics.rewardsEvaluated().increment();
+        calculateRewards(user);
+        return true;
+    }
+
+    /**
+     * Recalculates rewards for a given user by re-scanning their whole location history,
+     * regardless of what was already evaluated.
+     *
+     * @param user The user for whom rewards should be rebuilt.
+     */
+    public void recalculateRewards(User user) {
+        AttractionIndex index = getAttractionIndex();
+        user.getRewardsLock().lock();
+        try {
+            collectRewards(user, index, true);
+        } finally {
+            user.getRewardsLock().unlock();
+        }
     }
 
     /**
@@ -86,34 +250,65 @@ public class RewardsService {
      *
      * @param user        The user for whom rewards should be calculated.
      * @param executorService The thread pool executor for handling the task asynchronously.
+     * @param attractionIndex The attraction index to search for nearby attractions.
      * @return A CompletableFuture representing the completion of the reward calculation.
      */
-	public CompletableFuture<Void> calculateRewardsAsync(User user, ExecutorService executorService,List<Attraction> attractions) {
-		List<VisitedLocation> userLocations = user.getVisitedLocations(); // Liste des localisations visitées
-
-		return CompletableFuture.runAsync(() -> {
-
-			try {
-				synchronized (user) {
-					userLocations.forEach(visitedLocation -> {
-						attractions.forEach(attraction -> {
-							// Vérifier si une récompense existe déjà pour cette attraction
-							boolean rewardExists = user.getUserRewards().stream()
-									.anyMatch(r -> r.attraction.attractionName.equals(attraction.attractionName));
-
-							if (!rewardExists && nearAttraction(visitedLocation, attraction)) {
-								// Ajouter une nouvelle récompense
-								user.addUserReward(new UserReward(visitedLocation, attraction, getRewardPoints(attraction, user)));
-							}
-						});
-					});
-				}
-			} catch (Exception e) {
-				log.error("Error while calculating rewards asynchronously for user '{}': {}", user.getUserName(), e.getMessage(), e);
-				throw new RuntimeException("Error while calculating rewards asynchronously", e);
-			}
-		}, executorService);
-	}
+    public CompletableFuture<Void> calculateRewardsAsync(User user, ExecutorService executorService, AttractionIndex attractionIndex) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                user.getRewardsLock().lock();
+                try {
+                    collectRewards(user, attractionIndex, false);
+                } finally {
+                    user.getRewardsLock().unlock();
+                }
+            } catch (Exception e) {
+                log.error("Error while calculating rewards asynchronously for user '{}': {}", user.getUserName(), e.getMessage(), e);
+                throw new RuntimeException("Error while calculating rewards asynchronously", e);
+            }
+        }, executorService);
+    }
+
+    /**
+     * Adds a reward for every attraction within the proximity buffer of one of the user's visited locations.
+     * The spatial index returns exactly those attractions, so the whole catalog is never scanned.
+     * <p>
+     * In incremental mode, the scan starts at the user's rewards watermark, so only locations added since
+     * the previous evaluation are processed. In rebuild mode, the whole history is scanned again.
+     * Callers must hold the user's rewards lock, which keeps the watermark and the rewards consistent.
+     * </p>
+     *
+     * @param user            The user for whom rewards should be calculated.
+     * @param attractionIndex The attraction index to search for nearby attractions.
+     * @param rebuild         Whether to ignore the watermark and re-scan the whole history.
+     */
+    private void collectRewards(User user, AttractionIndex attractionIndex, boolean rebuild) {
+        Timer.Sample sample = Timer.start();
+        try {
+            collectRewards(user, attractionIndex, rebuild, evaluationEpoch.get());
+        } finally {
+            sample.stop(metrics.rewardCalculation());
+        }
+    }
+
+    private void collectRewards(User user, AttractionIndex attractionIndex, boolean rebuild, long epoch) {
+        long start = rebuild ? 0 : user.getRewardsWatermark(epoch);
+        LocationHistory.Slice slice = user.getLocationHistory().since(start);
+
+        for (VisitedLocation visitedLocation : slice.locations()) {
+            for (Attraction attraction : attractionIndex.findWithin(visitedLocation.location, proximityBuffer)) {
+                if (!user.hasRewardFor(attraction)) {
+                    UserReward userReward = new UserReward(visitedLocation, attraction, getRewardPoints(attraction, user));
+                    if (user.addUserReward(userReward) && userLog != null) {
+                        userLog.appendReward(user.getUserId(), userReward);
+                    }
+                }
+            }
+        }
+        List<VisitedLocation> evaluated = slice.locations();
+        Location lastEvaluated = evaluated.isEmpty() ? user.getRewardsLocation(epoch) : evaluated.get(evaluated.size() - 1).location;
+        user.setRewardsWatermark(slice.endSequence(), epoch, lastEvaluated);
+    }
 
     /**
      * Tracks and calculates rewards for all users asynchronously.
@@ -121,11 +316,11 @@ public class RewardsService {
      * @param users The list of users for whom rewards should be calculated.
      */
     public void trackCalculateRewardsAsync(List<User> users) {
-        List<Attraction> attractions = gpsUtil.getAttractions();
+        AttractionIndex index = getAttractionIndex();
 
         try {
             List<CompletableFuture<Void>> futures = users.stream()
-                    .map(user -> calculateRewardsAsync(user, executorService,attractions))
+                    .map(user -> calculateRewardsAsync(user, executorService, index))
                     .collect(Collectors.toList());
 
             CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
@@ -134,6 +329,15 @@ public class RewardsService {
         }
     }
 
+    /**
+     * Returns the reward points cache used by this service.
+     *
+     * @return the reward points cache
+     */
+    public RewardPointsCache getRewardPointsCache() {
+        return rewardPointsCache;
+    }
+
     /**
      * Checks if a given location is within the proximity of an attraction.
      *
@@ -146,25 +350,14 @@ public class RewardsService {
     }
 
     /**
-     * Determines if a visited location is near an attraction based on the proximity buffer.
-     *
-     * @param visitedLocation The user's visited location.
-     * @param attraction      The attraction to check against.
-     * @return True if the visited location is within proximity, false otherwise.
-     */
-    private boolean nearAttraction(VisitedLocation visitedLocation, Attraction attraction) {
-        return getDistance(attraction, visitedLocation.location) > proximityBuffer ? false : true;
-    }
-
-    /**
-     * Retrieves the reward points for visiting an attraction.
+     * Retrieves the reward points for visiting an attraction, through the reward points cache.
      *
      * @param attraction The attraction.
      * @param user       The user visiting the attraction.
      * @return The number of reward points awarded.
      */
     public int getRewardPoints(Attraction attraction, User user) {
-        return rewardsCentral.getAttractionRewardPoints(attraction.attractionId, user.getUserId());
+        return rewardPointsCache.getRewardPoints(attraction.attractionId, user.getUserId());
     }
 
     /**
@@ -175,17 +368,7 @@ public class RewardsService {
      * @return The distance in miles between the two locations.
      */
     public double getDistance(Location loc1, Location loc2) {
-        double lat1 = Math.toRadians(loc1.latitude);
-        double lon1 = Math.toRadians(loc1.longitude);
-        double lat2 = Math.toRadians(loc2.latitude);
-        double lon2 = Math.toRadians(loc2.longitude);
-
-        double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
-                + Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
-
-        double nauticalMiles = 60 * Math.toDegrees(angle);
-        double statuteMiles = STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
-        return statuteMiles;
+        return DistanceKernel.distanceMiles(loc1.latitude, loc1.longitude, loc2.latitude, loc2.longitude);
     }
 
 }
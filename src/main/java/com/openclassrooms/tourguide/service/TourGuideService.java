@@ -1,21 +1,36 @@
 package com.openclassrooms.tourguide.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.openclassrooms.tourguide.attraction.NearbyAttraction;
+import com.openclassrooms.tourguide.cache.TripQuoteCache;
+import com.openclassrooms.tourguide.gps.GpsGateway;
+import com.openclassrooms.tourguide.gps.GpsUtilGateway;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.helper.InternalUserGenerator;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+import com.openclassrooms.tourguide.persistence.UserLog;
+import com.openclassrooms.tourguide.persistence.UserSnapshot;
+import com.openclassrooms.tourguide.user.LocationRetention;
 import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRepository;
 import com.openclassrooms.tourguide.user.UserReward;
 
 
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
 import gpsUtil.GpsUtil;
@@ -32,27 +47,77 @@ import tripPricer.TripPricer;
  */
 @Slf4j
 @Service
+@DependsOn("internalUsersConfig")
 public class TourGuideService {
 
-    private final GpsUtil gpsUtil;
+    /** Gateway every location lookup goes through; replaced by the configured instance under Spring. */
+    private GpsGateway gpsGateway;
     private final RewardsService rewardsService;
     private final TripPricer tripPricer = new TripPricer();
+    /** Quote cache in front of {@link #tripPricer}; replaced by the configured instance under Spring. */
+    private TripQuoteCache tripQuoteCache = new TripQuoteCache(tripPricer);
     boolean testMode = true;
     private ExecutorService executorService;
 
+    /** Maximum number of users being tracked at the same time by {@link #trackAllUserLocations(List)}. */
+    private int trackingMaxInFlight = 1000;
+
+    /** Maximum age of a recorded location served by {@link #getUserLocation(User)}; zero serves any recorded location. */
+    private Duration locationMaxAge = Duration.ZERO;
+
+    /** Location lookups in progress, shared by concurrent {@link #getUserLocation(User)} callers for the same user. */
+    private final ConcurrentMap<UUID, CompletableFuture<VisitedLocation>> pendingLocations = new ConcurrentHashMap<>();
+
+    /** Meters recorded for tracking cycles and external calls; replaced by the shared instance under Spring. */
+    private TourGuideMetrics metrics = TourGuideMetrics.standalone();
+
+    /** Retention applied to the location history of every registered user. */
+    private LocationRetention locationRetention = LocationRetention.DEFAULT;
+
+    /** Workers calculating rewards for tracked locations, or {@code null} to calculate them on the tracking threads. */
+    private RewardEngine rewardEngine;
+
+    /** How long a tracking cycle waits for the reward engine to drain; zero does not wait. */
+    private Duration rewardsAwaitTimeout = Duration.ZERO;
+
+    /** Log that users and visited locations are appended to, or {@code null} when persistence is disabled. */
+    private final UserLog userLog;
+
+    /**
+     * Constructor initializing the service with required dependencies, keeping users in memory only.
+     *
+     * @param gpsUtil        The GPS utility service, looked up through a {@link GpsUtilGateway} until another gateway is set.
+     * @param rewardsService The rewards calculation service.
+     * @param executorService The executor service for handling concurrent operations.
+     */
+    public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService, ExecutorService executorService) {
+        this(gpsUtil, rewardsService, executorService, null);
+    }
+
     /**
      * Constructor initializing the service with required dependencies.
+     * <p>
+     * When a user log is given and holds records, the users it holds are recovered instead of
+     * generating internal users, and new users and visited locations are appended to it.
+     * </p>
      *
-     * @param gpsUtil        The GPS utility service.
+     * @param gpsUtil        The GPS utility service, looked up through a {@link GpsUtilGateway} until another gateway is set.
      * @param rewardsService The rewards calculation service.
      * @param executorService The executor service for handling concurrent operations.
+     * @param userLog        The user log, or {@code null} when persistence is disabled.
      */
-  public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService, ExecutorService executorService) {
-        this.gpsUtil = gpsUtil;
+    @Autowired
+    public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService, ExecutorService executorService,
+                            @Nullable UserLog userLog) {
+        this.gpsGateway = new GpsUtilGateway(gpsUtil);
         this.rewardsService = rewardsService;
         this.executorService = executorService;
+        this.userLog = userLog;
         Locale.setDefault(Locale.US);
 
+        if (userLog != null && !userLog.isEmpty() && recoverUsers() > 0) {
+            return;
+        }
         if (testMode) {
             log.info("TestMode enabled");
             log.debug("Initializing users");
@@ -61,6 +126,22 @@ public class TourGuideService {
         }
     }
 
+    /**
+     * Loads the users held by the user log into the repository.
+     *
+     * @return the number of recovered users
+     */
+    private int recoverUsers() {
+        long start = System.nanoTime();
+        Map<String, Attraction> catalog = rewardsService.getAttractionIndex().getAttractions().stream()
+                .collect(Collectors.toMap(a -> a.attractionName, a -> a, (a, b) -> a));
+        List<User> users = userLog.loadUsers(catalog);
+        users.forEach(userRepository::add);
+        log.info("Recovered {} users from the user log in {} ms", users.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return users.size();
+    }
+
     /**
      * Retrieves a user's reward points.
      *
@@ -74,14 +155,51 @@ public class TourGuideService {
 
     /**
      * Retrieves the last known location of a user or tracks a new location if none exists.
+     * <p>
+     * The last recorded location is served while it is younger than {@code location.max-age}, or
+     * whatever its age when no maximum age is set. Otherwise the user is tracked, and concurrent
+     * callers for the same user share that single lookup instead of each calling GpsUtil.
+     * </p>
      *
      * @param user The user whose location is being retrieved.
      * @return The last visited location of the user.
      */
     public VisitedLocation getUserLocation(User user) {
-        VisitedLocation visitedLocation = (user.getVisitedLocations().size() > 0) ? user.getLastVisitedLocation()
-                : trackUserLocation(user);
-        return visitedLocation;
+        VisitedLocation visitedLocation = freshLocation(user);
+        return visitedLocation != null ? visitedLocation : trackUserLocationOnce(user);
+    }
+
+    private VisitedLocation freshLocation(User user) {
+        if (user.getLocationHistory().isEmpty()) {
+            return null;
+        }
+        VisitedLocation last = user.getLastVisitedLocation();
+        boolean fresh = locationMaxAge.isZero()
+                || last.timeVisited.getTime() >= System.currentTimeMillis() - locationMaxAge.toMillis();
+        return fresh ? last : null;
+    }
+
+    private VisitedLocation trackUserLocationOnce(User user) {
+        CompletableFuture<VisitedLocation> pending = new CompletableFuture<>();
+        CompletableFuture<VisitedLocation> inFlight = pendingLocations.putIfAbsent(user.getUserId(), pending);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            // a lookup may have completed between the freshness check and the registration
+            VisitedLocation visitedLocation = freshLocation(user);
+            pending.complete(visitedLocation != null ? visitedLocation : trackUserLocationNoWait(user));
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingLocations.remove(user.getUserId(), pending);
+        }
+        return pending.join();
     }
 
     /**
@@ -91,16 +209,39 @@ public class TourGuideService {
      * @return The User object if found, otherwise null.
      */
     public User getUser(String userName) {
-        return internalUserMap.get(userName);
+        return userRepository.findByUserName(userName);
+    }
+
+    /**
+     * Retrieves a user by id.
+     *
+     * @param userId The id of the user.
+     * @return The User object if found, otherwise null.
+     */
+    public User getUser(UUID userId) {
+        return userRepository.findById(userId);
     }
 
     /**
      * Retrieves all registered users.
+     * <p>
+     * This copies every user into a new list; use {@link #getUserRepository()} to walk the users
+     * shard by shard without copying.
+     * </p>
      *
      * @return A list of all users.
      */
     public List<User> getAllUsers() {
-        return internalUserMap.values().stream().collect(Collectors.toList());
+        return userRepository.stream().collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the repository holding every registered user.
+     *
+     * @return the user repository
+     */
+    public UserRepository getUserRepository() {
+        return userRepository;
     }
 
     /**
@@ -109,20 +250,27 @@ public class TourGuideService {
      * @param user The user to be added.
      */
     public void addUser(User user) {
-        if (!internalUserMap.containsKey(user.getUserName())) {
-            internalUserMap.put(user.getUserName(), user);
+        user.getLocationHistory().setRetention(locationRetention);
+        if (userRepository.add(user) && userLog != null) {
+            persist(user);
         }
     }
 
+    private void persist(User user) {
+        userLog.appendUser(user);
+        user.getVisitedLocations().forEach(userLog::appendLocation);
+    }
+
     /**
      * Retrieves trip deals based on a user's profile and reward points.
+     * Quotes are served from the trip quote cache while the preferences and reward points are unchanged.
      *
      * @param user The user requesting trip deals.
      * @return A list of recommended trip providers.
      */
     public List<Provider> getTripDeals(User user) {
         int cumulatativeRewardPoints = user.getUserRewards().stream().mapToInt(i -> i.getRewardPoints()).sum();
-        List<Provider> providers = tripPricer.getPrice(tripPricerApiKey, user.getUserId(),
+        List<Provider> providers = tripQuoteCache.getPrice(tripPricerApiKey, user.getUserId(),
                 user.getUserPreferences().getNumberOfAdults(), user.getUserPreferences().getNumberOfChildren(),
                 user.getUserPreferences().getTripDuration(), cumulatativeRewardPoints);
         user.setTripDeals(providers);
@@ -131,18 +279,159 @@ public class TourGuideService {
 
     /**
      * Tracks the user's current location synchronously and updates their visited locations.
+     * Rewards are then calculated, unless the user has not moved measurably since their last rewards evaluation.
+     * <p>
+     * This method returns once the user's rewards are up to date, even when a reward engine
+     * calculates them on its own workers: it waits for the engine to process this location.
+     * Tracking cycles and location lookups do not wait; they hand the location over and move on.
+     * </p>
      *
      * @param user The user whose location is being tracked.
      * @return The visited location object.
      */
     public VisitedLocation trackUserLocation(User user) {
+        VisitedLocation visitedLocation = recordUserLocation(user);
+        try {
+            publishRewards(user, visitedLocation, true).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        return visitedLocation;
+    }
+
+    /**
+     * Tracks the user's current location and hands it over for rewards, without waiting for the
+     * reward engine.
+     */
+    private VisitedLocation trackUserLocationNoWait(User user) {
+        VisitedLocation visitedLocation = recordUserLocation(user);
+        publishRewards(user, visitedLocation, true);
+        return visitedLocation;
+    }
 
-        VisitedLocation visitedLocation = gpsUtil.getUserLocation(user.getUserId());
+    private VisitedLocation recordUserLocation(User user) {
+        VisitedLocation visitedLocation = metrics.gpsLocation().record(() -> gpsGateway.getUserLocation(user.getUserId()));
         user.addToVisitedLocations(visitedLocation);
-        rewardsService.calculateRewards(user);
+        if (userLog != null) {
+            userLog.appendLocation(visitedLocation);
+        }
         return visitedLocation;
     }
 
+    /**
+     * Hands a tracked location over to the reward engine, or, without one, calculates the rewards
+     * on the calling thread or in the background.
+     *
+     * @return a future completed once the rewards are calculated
+     */
+    private CompletableFuture<Void> publishRewards(User user, VisitedLocation visitedLocation, boolean inline) {
+        if (rewardEngine != null) {
+            return rewardEngine.publish(user, visitedLocation);
+        } else if (inline) {
+            rewardsService.calculateRewardsIfMoved(user, visitedLocation);
+            return CompletableFuture.completedFuture(null);
+        } else {
+            return CompletableFuture.runAsync(() -> rewardsService.calculateRewardsIfMoved(user, visitedLocation), executorService);
+        }
+    }
+
+    /**
+     * Waits until the reward engine has processed every tracked location published so far.
+     *
+     * @param timeout the maximum time to wait
+     * @return {@code true} if every reward is calculated, or no reward engine is set;
+     *         {@code false} if the timeout expired first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitRewards(Duration timeout) throws InterruptedException {
+        return rewardEngine == null || rewardEngine.awaitIdle(timeout);
+    }
+
+    /**
+     * Retrieves the locations of several users at once.
+     * <p>
+     * Users with a recorded location young enough for {@link #getUserLocation(User)} are answered
+     * from their history. Users already being looked up by another caller share that lookup, as in
+     * {@link #getUserLocation(User)}; the others are registered as in flight and looked up in a
+     * single batch through the GPS gateway, and their rewards are calculated in the background.
+     * Users whose lookup failed are left out.
+     * </p>
+     *
+     * @param users The users whose locations are being retrieved.
+     * @return The locations by user id, in the order of {@code users}.
+     */
+    public Map<UUID, VisitedLocation> getUserLocations(Collection<User> users) {
+        Map<UUID, VisitedLocation> locations = new LinkedHashMap<>();
+        Map<UUID, CompletableFuture<VisitedLocation>> joined = new HashMap<>();
+        Map<User, CompletableFuture<VisitedLocation>> toTrack = new LinkedHashMap<>();
+        for (User user : users) {
+            VisitedLocation visitedLocation = freshLocation(user);
+            locations.put(user.getUserId(), visitedLocation);
+            if (visitedLocation != null) {
+                continue;
+            }
+            CompletableFuture<VisitedLocation> pending = new CompletableFuture<>();
+            CompletableFuture<VisitedLocation> inFlight = pendingLocations.putIfAbsent(user.getUserId(), pending);
+            if (inFlight != null) {
+                joined.put(user.getUserId(), inFlight);
+                continue;
+            }
+            // a lookup may have completed between the freshness check and the registration
+            visitedLocation = freshLocation(user);
+            if (visitedLocation != null) {
+                pending.complete(visitedLocation);
+                pendingLocations.remove(user.getUserId(), pending);
+                locations.put(user.getUserId(), visitedLocation);
+            } else {
+                toTrack.put(user, pending);
+            }
+        }
+        if (!toTrack.isEmpty()) {
+            trackUserLocationsOnce(toTrack, locations);
+        }
+        joined.forEach((userId, inFlight) -> {
+            try {
+                locations.put(userId, inFlight.join());
+            } catch (CompletionException | CancellationException e) {
+                log.debug("Shared location lookup for user {} failed: {}", userId, e.getMessage());
+            }
+        });
+        locations.values().removeIf(Objects::isNull);
+        return locations;
+    }
+
+    /**
+     * Looks up the users registered as in flight in one batch, records their locations and completes
+     * their pending lookups, then unregisters them.
+     */
+    private void trackUserLocationsOnce(Map<User, CompletableFuture<VisitedLocation>> toTrack,
+                                        Map<UUID, VisitedLocation> locations) {
+        try {
+            Map<UUID, VisitedLocation> tracked = gpsGateway.getUserLocations(
+                    toTrack.keySet().stream().map(User::getUserId).collect(Collectors.toList()));
+            toTrack.forEach((user, pending) -> {
+                VisitedLocation visitedLocation = tracked.get(user.getUserId());
+                if (visitedLocation != null) {
+                    user.addToVisitedLocations(visitedLocation);
+                    if (userLog != null) {
+                        userLog.appendLocation(visitedLocation);
+                    }
+                    publishRewards(user, visitedLocation, false);
+                    pending.complete(visitedLocation);
+                } else {
+                    pending.completeExceptionally(new IllegalStateException(
+                            "No location found for user " + user.getUserId()));
+                }
+                locations.put(user.getUserId(), visitedLocation);
+            });
+        } catch (RuntimeException e) {
+            toTrack.values().forEach(pending -> pending.completeExceptionally(e));
+            throw e;
+        } finally {
+            toTrack.forEach((user, pending) -> pendingLocations.remove(user.getUserId(), pending));
+        }
+    }
+
     /**
      * Tracks a user's location asynchronously using an executor service.
      *
@@ -154,9 +443,12 @@ public class TourGuideService {
         return CompletableFuture.supplyAsync(() -> {
             log.info("Tracking user location");
             try {
-                VisitedLocation visitedLocation = gpsUtil.getUserLocation(user.getUserId());
+                VisitedLocation visitedLocation = metrics.gpsLocation().record(() -> gpsGateway.getUserLocation(user.getUserId()));
                 user.addToVisitedLocations(visitedLocation);
-                CompletableFuture.runAsync(() -> rewardsService.calculateRewards(user), executorService);
+                if (userLog != null) {
+                    userLog.appendLocation(visitedLocation);
+                }
+                publishRewards(user, visitedLocation, false);
                 return visitedLocation;
             } catch (Exception e) {
                 log.error("Error tracking location for user '{}': {}", user.getUserName(), e.getMessage(), e);
@@ -166,88 +458,246 @@ public class TourGuideService {
     }
 
     /**
-     * Tracks the locations of all users concurrently.
+     * Sets the meters recorded for tracking cycles and external calls.
      *
-     * @param users The list of users whose locations need to be tracked.
+     * @param metrics the shared TourGuide metrics
      */
+    @Autowired
+    public void setMetrics(TourGuideMetrics metrics) {
+        this.metrics = metrics;
+        tripQuoteCache.setMetrics(metrics);
+    }
 
-    public void trackAllUserLocations(List<User> users) {
-        try {
-            log.info("Tracking all user locations");
+    /**
+     * Sets the retention of the location history of every registered user, including the users
+     * already registered.
+     *
+     * @param locationRetention the configured location retention
+     */
+    @Autowired
+    public void setLocationRetention(LocationRetention locationRetention) {
+        this.locationRetention = locationRetention;
+        userRepository.forEach(user -> user.getLocationHistory().setRetention(locationRetention));
+    }
 
-            List<CompletableFuture<VisitedLocation>> futures = users.stream()
-                    .map(user -> trackUserLocationAsync(user, executorService)
-                            .handle((result, ex) -> {
-                                if (ex != null) {
-                                    log.error("Failed to track location for user '{}': {}", user.getUserName(), ex.getMessage());
-                                    return null;
-                                }
-                                return result;
-                            }))
-                    .collect(Collectors.toList());
+    /**
+     * Sets the reward engine that tracked locations are published to.
+     *
+     * @param rewardEngine the configured reward engine
+     */
+    @Autowired(required = false)
+    public void setRewardEngine(RewardEngine rewardEngine) {
+        this.rewardEngine = rewardEngine;
+    }
+
+    /**
+     * Sets how long a full tracking cycle waits for the reward engine to calculate the rewards of
+     * the locations it tracked.
+     *
+     * @param rewardsAwaitTimeout the maximum wait, from {@code tracker.await-rewards-timeout}; zero does not wait
+     */
+    @Value("${tracker.await-rewards-timeout:0s}")
+    public void setRewardsAwaitTimeout(Duration rewardsAwaitTimeout) {
+        if (rewardsAwaitTimeout.isNegative()) {
+            throw new IllegalArgumentException("tracker.await-rewards-timeout must not be negative");
+        }
+        this.rewardsAwaitTimeout = rewardsAwaitTimeout;
+    }
 
-            log.info("Waiting for all tracking tasks to complete...");
-            CompletableFuture<Void> allTasks = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    /**
+     * Returns how long a full tracking cycle waits for the reward engine.
+     *
+     * @return the maximum wait; zero does not wait
+     */
+    public Duration getRewardsAwaitTimeout() {
+        return rewardsAwaitTimeout;
+    }
 
-            allTasks.join();
+    /**
+     * Sets the gateway every location lookup goes through.
+     *
+     * @param gpsGateway the configured GPS gateway
+     */
+    @Autowired
+    public void setGpsGateway(GpsGateway gpsGateway) {
+        this.gpsGateway = gpsGateway;
+    }
 
-            long failedCount = futures.stream().filter(f -> f.isCompletedExceptionally()).count();
-            if (failedCount > 0) {
-                log.warn("Tracking completed, but {} users failed to be tracked.", failedCount);
-            } else {
-                log.info("All tracking tasks completed successfully!");
-            }
+    /**
+     * Sets the quote cache in front of TripPricer.
+     *
+     * @param tripQuoteCache the configured trip quote cache
+     */
+    @Autowired
+    public void setTripQuoteCache(TripQuoteCache tripQuoteCache) {
+        tripQuoteCache.setMetrics(metrics);
+        this.tripQuoteCache = tripQuoteCache;
+    }
+
+    /**
+     * Returns the quote cache in front of TripPricer.
+     *
+     * @return the trip quote cache
+     */
+    public TripQuoteCache getTripQuoteCache() {
+        return tripQuoteCache;
+    }
 
-        } catch (Exception e) {
-            log.error("Error during tracking: {}", e.getMessage(), e);
+    /**
+     * Sets the maximum age of a recorded location served by {@link #getUserLocation(User)}.
+     *
+     * @param locationMaxAge the maximum age, from {@code location.max-age}; zero serves any recorded location
+     */
+    @Value("${location.max-age:0s}")
+    public void setLocationMaxAge(Duration locationMaxAge) {
+        if (locationMaxAge.isNegative()) {
+            throw new IllegalArgumentException("location.max-age must not be negative");
         }
+        this.locationMaxAge = locationMaxAge;
     }
 
+    /**
+     * Sets the maximum number of users being tracked at the same time.
+     *
+     * @param trackingMaxInFlight the in-flight limit, from {@code tracker.max-in-flight}
+     */
+    @Value("${tracker.max-in-flight:1000}")
+    public void setTrackingMaxInFlight(int trackingMaxInFlight) {
+        if (trackingMaxInFlight < 1) {
+            throw new IllegalArgumentException("tracker.max-in-flight must be at least 1");
+        }
+        this.trackingMaxInFlight = trackingMaxInFlight;
+    }
 
     /**
-     * Retrieves the five nearest tourist attractions based on the user's current location.
+     * Tracks the locations of all users concurrently, then calculates their rewards.
+     * <p>
+     * Users are streamed through the executor, with at most {@code tracker.max-in-flight} of them
+     * tracked at the same time. Once the limit is reached, submission waits for a user to
+     * finish, so a slow GPS backend slows the cycle down instead of filling the executor queue, and
+     * no per-user future is kept once that user is done.
+     * </p>
+     * <p>
+     * With a reward engine, rewards are calculated by its workers, and the cycle waits for them only
+     * up to {@code tracker.await-rewards-timeout}.
+     * </p>
      *
-     * @param user            The user requesting nearby attractions.
-     * @param visitedLocation The user's last known location.
-     * @return A list of JSON objects representing the nearby attractions.
+     * @param users The list of users whose locations need to be tracked.
      */
-    public List<ObjectNode> getNearByAttractions(User user, VisitedLocation visitedLocation) {
+    public void trackAllUserLocations(List<User> users) {
+        trackUserLocations(users, users.size());
+    }
 
-        List<Attraction> attractions = gpsUtil.getAttractions();
-        Map<Attraction, Double> distanceMap = new HashMap<>();
+    /**
+     * Tracks the locations of every registered user, walking the user repository shard by shard
+     * instead of copying it, then calculates their rewards.
+     */
+    public void trackAllUserLocations() {
+        trackUserLocations(userRepository, userRepository.size());
+    }
 
-        for (Attraction attraction : attractions) {
-            Double dis = rewardsService.getDistance(attraction, visitedLocation.location);
-            distanceMap.put(attraction, dis);
-        }
+    /**
+     * Tracks the locations of some users concurrently, then calculates their rewards, under the same
+     * in-flight limit as {@link #trackAllUserLocations(List)}. This is one step of a spread tracking
+     * schedule, so the users are counted but no tracking cycle is recorded.
+     *
+     * @param users The users whose locations need to be tracked.
+     */
+    public void trackUserLocations(Collection<User> users) {
+        trackUserLocations(users, users.size(), false);
+    }
 
-        List<Map.Entry<Attraction, Double>> sortedAttractions = distanceMap.entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByValue())
-                .limit(5)
-                .toList();
+    private void trackUserLocations(Iterable<User> users, int userCount) {
+        trackUserLocations(users, userCount, true);
+    }
+
+    private void trackUserLocations(Iterable<User> users, int userCount, boolean fullCycle) {
+        if (fullCycle) {
+            log.info("Tracking all user locations");
+        }
+        int maxInFlight = trackingMaxInFlight;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicInteger failedCount = new AtomicInteger();
+        int submitted = 0;
+        int rejected = 0;
+        long start = System.nanoTime();
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        List<ObjectNode> jsonAttractions = sortedAttractions.stream()
-                .map(entry -> {
-                    Attraction attraction = entry.getKey();
-                    Double distance = entry.getValue();
-                    ObjectNode attractionJson = objectMapper.createObjectNode();
+        try {
+            for (User user : users) {
+                inFlight.acquire();
+                submitted++;
+                try {
+                    CompletableFuture.runAsync(() -> trackUserLocationNoWait(user), executorService)
+                            .whenComplete((result, ex) -> {
+                                if (ex != null) {
+                                    failedCount.incrementAndGet();
+                                    log.error("Failed to track location for user '{}': {}", user.getUserName(), ex.getMessage());
+                                }
+                                inFlight.release();
+                            });
+                } catch (RejectedExecutionException e) {
+                    rejected++;
+                    failedCount.incrementAndGet();
+                    inFlight.release();
+                }
+            }
+            if (rejected > 0) {
+                log.error("The executor rejected {} of {} users submitted for tracking", rejected, submitted);
+            }
+            log.debug("Submitted {}/{} users for tracking", submitted, userCount);
 
-                    attractionJson.put("name", attraction.attractionName);
-                    attractionJson.put("attractionLatitude", attraction.latitude);
-                    attractionJson.put("attractionLongitude", attraction.longitude);
-                    attractionJson.put("userLatitude", visitedLocation.location.latitude);
-                    attractionJson.put("userLongitude", visitedLocation.location.longitude);
-                    attractionJson.put("distance", distance);
-                    attractionJson.put("rewardPoints", rewardsService.getRewardPoints(attraction, user));
+            if (fullCycle) {
+                log.info("Waiting for the remaining tracking tasks to complete...");
+            }
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+            if (fullCycle && !rewardsAwaitTimeout.isZero() && !awaitRewards(rewardsAwaitTimeout)) {
+                log.warn("Rewards still pending {} after tracking completed ({} users queued)",
+                        rewardsAwaitTimeout, rewardEngine.getQueueDepth());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Tracking interrupted before all users were tracked");
+            return;
+        }
 
-                    return attractionJson;
-                })
-                .collect(Collectors.toList());
+        if (!fullCycle) {
+            metrics.recordTrackedUsers(submitted, failedCount.get());
+            if (failedCount.get() > 0) {
+                log.warn("{} of {} users failed to be tracked.", failedCount.get(), submitted);
+            }
+            return;
+        }
+        metrics.recordTrackerCycle(submitted, failedCount.get(), System.nanoTime() - start);
+        if (failedCount.get() > 0) {
+            log.warn("Tracking completed, but {} users failed to be tracked.", failedCount.get());
+        } else {
+            log.info("All tracking tasks completed successfully!");
+        }
+    }
 
-        return jsonAttractions;
 
+    /**
+     * Retrieves the five nearest tourist attractions based on the user's current location.
+     *
+     * @param user            The user requesting nearby attractions.
+     * @param visitedLocation The user's last known location.
+     * @return The nearby attractions, nearest first.
+     */
+    public List<NearbyAttraction> getNearByAttractions(User user, VisitedLocation visitedLocation) {
+
+        List<Attraction> nearestAttractions = rewardsService.getAttractionIndex()
+                .findNearest(visitedLocation.location, 5);
+
+        List<NearbyAttraction> nearbyAttractions = new ArrayList<>(nearestAttractions.size());
+        for (Attraction attraction : nearestAttractions) {
+            nearbyAttractions.add(new NearbyAttraction(attraction,
+                    visitedLocation.location.latitude,
+                    visitedLocation.location.longitude,
+                    rewardsService.getDistance(attraction, visitedLocation.location),
+                    rewardsService.getRewardPoints(attraction, user)));
+        }
+        return nearbyAttractions;
     }
 
     /**********************************************************************************
@@ -258,43 +708,47 @@ public class TourGuideService {
     private static final String tripPricerApiKey = "test-server-api-key";
     // Database connection will be used for external users, but for testing purposes
     // internal users are provided and stored in memory
-    private final Map<String, User> internalUserMap = new HashMap<>();
+    private final UserRepository userRepository = new UserRepository();
 
+    /**
+     * Fills the repository with the internal test users: loaded from the snapshot when one is
+     * configured, exists and was written for the configured user count and seed, otherwise
+     * generated in parallel from the configured seed, and saved to the snapshot when one is
+     * configured. Without a configured seed, a snapshot of the right size is loaded whatever seed
+     * it was generated from. A snapshot that cannot be read is regenerated and rewritten like a
+     * mismatched one.
+     */
     private void initializeInternalUsers() {
-        IntStream.range(0, InternalTestHelper.getInternalUserNumber()).forEach(i -> {
-            String userName = "internalUser" + i;
-            String phone = "000";
-            String email = userName + "@tourGuide.com";
-            User user = new User(UUID.randomUUID(), userName, phone, email);
-            generateUserLocationHistory(user);
-
-            internalUserMap.put(userName, user);
-        });
-        log.debug("Created " + InternalTestHelper.getInternalUserNumber() + " internal test users.");
-    }
-
-    private void generateUserLocationHistory(User user) {
-        IntStream.range(0, 3).forEach(i -> {
-            user.addToVisitedLocations(new VisitedLocation(user.getUserId(),
-                    new Location(generateRandomLatitude(), generateRandomLongitude()), getRandomTime()));
-        });
-    }
-
-    private double generateRandomLongitude() {
-        double leftLimit = -180;
-        double rightLimit = 180;
-        return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
-    }
-
-    private double generateRandomLatitude() {
-        double leftLimit = -85.05112878;
-        double rightLimit = 85.05112878;
-        return leftLimit + new Random().nextDouble() * (rightLimit - leftLimit);
-    }
-
-    private Date getRandomTime() {
-        LocalDateTime localDateTime = LocalDateTime.now().minusDays(new Random().nextInt(30));
-        return Date.from(localDateTime.toInstant(ZoneOffset.UTC));
+        Path snapshot = InternalTestHelper.getInternalUserSnapshot();
+        Long configuredSeed = InternalTestHelper.getInternalUserSeed();
+        int userCount = InternalTestHelper.getInternalUserNumber();
+        List<User> users = null;
+        if (snapshot != null && Files.exists(snapshot)) {
+            try {
+                UserSnapshot.Header header = UserSnapshot.readHeader(snapshot);
+                if (header.userCount() == userCount && (configuredSeed == null || header.seed() == configuredSeed)) {
+                    users = UserSnapshot.read(snapshot);
+                    log.debug("Loaded " + users.size() + " internal test users from " + snapshot);
+                } else {
+                    log.info("Ignoring internal user snapshot " + snapshot + " written for " + header.userCount()
+                            + " users with seed " + header.seed() + "; regenerating " + userCount + " users");
+                }
+            } catch (UncheckedIOException e) {
+                log.warn("Ignoring unreadable internal user snapshot " + snapshot + " (" + e.getCause().getMessage()
+                        + "); regenerating " + userCount + " users");
+            }
+        }
+        if (users == null) {
+            long seed = configuredSeed != null ? configuredSeed : System.nanoTime();
+            InternalUserGenerator generator = new InternalUserGenerator(seed, Instant.now());
+            users = generator.generate(userCount);
+            if (snapshot != null) {
+                UserSnapshot.write(snapshot, users, seed);
+                log.debug("Saved internal test users to " + snapshot);
+            }
+        }
+        users.parallelStream().forEach(this::addUser);
+        log.debug("Created " + users.size() + " internal test users.");
     }
 
 }
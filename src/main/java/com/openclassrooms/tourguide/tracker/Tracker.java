@@ -1,23 +1,62 @@
 package com.openclassrooms.tourguide.tracker;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import io.micrometer.core.instrument.Clock;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.time.StopWatch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
+import com.openclassrooms.tourguide.cluster.UserOwnership;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRepository;
 import org.springframework.stereotype.Component;
 
 /**
  * The {@code Tracker} class is responsible for periodically tracking user locations.
- * It schedules a background task that retrieves all users and updates their locations at a fixed interval.
+ * It schedules a background task that updates every user's location once per tracking interval.
  * This ensures that user positions are kept up to date for accurate recommendations and rewards calculations.
  *
  * <p>The tracking runs asynchronously using a {@link ScheduledExecutorService} to avoid blocking the main application flow.</p>
  *
+ * <h2>Schedules</h2>
+ * <p>With the {@link Schedule#SPREAD} schedule, the default, users are spread over the interval by a
+ * {@link TrackingWheel}: every tick tracks the users of one slot, so the executor and the GPS
+ * service see a steady load instead of a burst. When {@code tracker.max-rate} is set, a tick tracks
+ * at most its share of that rate, carrying fractions of a user over to the next ticks, and leaves
+ * the rest waiting; a user still waiting when its slot comes round again is not queued twice. Each
+ * revolution of the wheel is recorded as a tracking cycle.</p>
+ * <p>With the {@link Schedule#BURST} schedule, every user is tracked at once at the start of each
+ * interval. The shards of the user repository are split between {@code tracker.partitions}
+ * partitions, tracked in parallel, each walking its shards in place in chunks of
+ * {@code tracker.chunk-size} users, so a cycle never copies the repository. A cycle's deadline is
+ * the start of the next one; progress is published and the deadline checked after every chunk, and
+ * a cycle still running at its deadline is an overrun, handled by the {@link OverrunPolicy}. Under
+ * {@link OverrunPolicy#SKIP} and {@link OverrunPolicy#CATCH_UP} a cycle keeps going past its deadline
+ * for at most {@code tracker.max-overrun}, then stops like {@link OverrunPolicy#SHRINK}, so the next
+ * cycle never starts more than that late. Cycles never overlap.</p>
+ * <p>With the {@link Schedule#SPREAD} schedule, a revolution that starts while users of the previous
+ * one are still waiting for their turn is counted as an overrun as well.</p>
+ *
+ * <h2>Clustering</h2>
+ * <p>When a {@link UserOwnership} is set, the tracker only tracks, and so only rewards, the users
+ * this node owns. Ownership changes are picked up at the next cycle or revolution.</p>
+ *
  * <h2>Usage</h2>
  * <p>The tracker automatically starts when the application initializes, thanks to the {@link PostConstruct} annotation.</p>
  * <p>To stop tracking, call {@link #stopTracking()}, which will gracefully shut down the scheduled task.</p>
@@ -27,17 +66,95 @@ import org.springframework.stereotype.Component;
 @Component
 public class Tracker {
 
-    /** Interval in seconds between tracking executions. */
-    private static final long trackingPollingInterval = TimeUnit.MINUTES.toSeconds(5);
+    /** How the users are tracked over an interval. */
+    public enum Schedule {
+        /** Every user at once at the start of each interval. */
+        BURST,
+        /** Users spread evenly over the interval. */
+        SPREAD
+    }
+
+    /** What a {@link Schedule#BURST} cycle still running at its deadline does. */
+    public enum OverrunPolicy {
+        /**
+         * Finish the cycle, within the maximum overrun, then wait for the next interval boundary;
+         * the missed cycles are skipped.
+         */
+        SKIP,
+        /**
+         * Finish the cycle, within the maximum overrun, then start the next one at once, until the
+         * tracker is back on time.
+         */
+        CATCH_UP,
+        /** Stop at the deadline; the users not tracked yet go first in the next cycle. */
+        SHRINK
+    }
+
+    /** Interval between two tracking passes over the same user. */
+    private Duration trackingPollingInterval = Duration.ofMinutes(5);
+
+    /** How the users are tracked over an interval. */
+    private Schedule schedule = Schedule.SPREAD;
+
+    /** Number of ticks per interval with the {@link Schedule#SPREAD} schedule. */
+    private int wheelSlots = 300;
+
+    /** Maximum number of users tracked per second with the {@link Schedule#SPREAD} schedule; zero for no limit. */
+    private int maxRate;
+
+    /** What a {@link Schedule#BURST} cycle still running at its deadline does. */
+    private OverrunPolicy overrunPolicy = OverrunPolicy.SKIP;
+
+    /** Number of partitions tracked in parallel with the {@link Schedule#BURST} schedule. */
+    private int partitions = 4;
+
+    /** Number of users tracked between two deadline checks with the {@link Schedule#BURST} schedule. */
+    private int chunkSize = 500;
+
+    /** How long a {@link OverrunPolicy#SKIP} or {@link OverrunPolicy#CATCH_UP} cycle may run past its deadline; zero for one interval. */
+    private Duration maxOverrun = Duration.ZERO;
 
     /** Scheduled executor service for periodic tracking. */
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
 
+    /** Workers tracking the partitions of a {@link Schedule#BURST} cycle. */
+    private ExecutorService partitionWorkers;
+
+    /** Users of this node when clustered, or {@code null} to track every user. */
+    private UserOwnership ownership;
+
+    /** Source of the monotonic time that {@link Schedule#BURST} deadlines are measured with. */
+    private Clock clock = Clock.SYSTEM;
+
+    /** Meters recording cycle progress and overruns; replaced by the shared instance under Spring. */
+    private TourGuideMetrics metrics = TourGuideMetrics.standalone();
+
     /** The service responsible for managing user locations. */
     private final TourGuideService tourGuideService;
 
-    /** Flag to indicate whether tracking should stop. */
-    private boolean stop = false;
+    /** Users waiting for their turn when the rate limit defers them; only used on the scheduler thread. */
+    private final Deque<User> backlog = new ArrayDeque<>();
+
+    /** Ids of the users in {@link #backlog}, so a user still waiting is not queued a second time. */
+    private final Set<UUID> backlogIds = new HashSet<>();
+
+    /** Users the rate limit allows but the ticks have not used yet, including fractions of a user. */
+    private double rateCredit;
+
+    /** Monotonic start of the current {@link Schedule#SPREAD} revolution, or -1 before the first one. */
+    private long revolutionStart = -1;
+
+    /** Users tracked in the current {@link Schedule#SPREAD} revolution. */
+    private int revolutionTracked;
+
+    /** Users left over by a cycle stopped at its cutoff, by partition; only used on the scheduler thread. */
+    private List<List<User>> carryOver = List.of();
+
+    private TrackingWheel wheel;
+    private int cursor;
+
+    /** Flag to indicate whether tracking should stop, read by the scheduler and the partition workers. */
+    private volatile boolean stop = false;
 
 
     /**
@@ -49,19 +166,152 @@ public class Tracker {
         this.tourGuideService = tourGuideService;
     }
 
+    /**
+     * Sets the interval between two tracking passes over the same user.
+     *
+     * @param trackingPollingInterval the interval, from {@code tracker.interval}
+     */
+    @Value("${tracker.interval:5m}")
+    public void setTrackingPollingInterval(Duration trackingPollingInterval) {
+        if (trackingPollingInterval.isZero() || trackingPollingInterval.isNegative()) {
+            throw new IllegalArgumentException("tracker.interval must be positive");
+        }
+        this.trackingPollingInterval = trackingPollingInterval;
+    }
+
+    /**
+     * Sets how the users are tracked over an interval.
+     *
+     * @param schedule the schedule, from {@code tracker.schedule}
+     */
+    @Value("${tracker.schedule:SPREAD}")
+    public void setSchedule(Schedule schedule) {
+        this.schedule = schedule;
+    }
+
+    /**
+     * Sets the number of ticks per interval with the {@link Schedule#SPREAD} schedule.
+     *
+     * @param wheelSlots the number of slots, from {@code tracker.wheel-slots}
+     */
+    @Value("${tracker.wheel-slots:300}")
+    public void setWheelSlots(int wheelSlots) {
+        if (wheelSlots < 1) {
+            throw new IllegalArgumentException("tracker.wheel-slots must be at least 1");
+        }
+        this.wheelSlots = wheelSlots;
+    }
+
+    /**
+     * Sets the maximum number of users tracked per second with the {@link Schedule#SPREAD} schedule.
+     *
+     * @param maxRate the rate limit, from {@code tracker.max-rate}; zero for no limit
+     */
+    @Value("${tracker.max-rate:0}")
+    public void setMaxRate(int maxRate) {
+        if (maxRate < 0) {
+            throw new IllegalArgumentException("tracker.max-rate must not be negative");
+        }
+        this.maxRate = maxRate;
+    }
+
+    /**
+     * Sets what a {@link Schedule#BURST} cycle still running at its deadline does.
+     *
+     * @param overrunPolicy the policy, from {@code tracker.overrun-policy}
+     */
+    @Value("${tracker.overrun-policy:SKIP}")
+    public void setOverrunPolicy(OverrunPolicy overrunPolicy) {
+        this.overrunPolicy = overrunPolicy;
+    }
+
+    /**
+     * Sets the number of partitions tracked in parallel with the {@link Schedule#BURST} schedule.
+     *
+     * @param partitions the number of partitions, from {@code tracker.partitions}
+     */
+    @Value("${tracker.partitions:4}")
+    public void setPartitions(int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("tracker.partitions must be at least 1");
+        }
+        this.partitions = partitions;
+    }
+
+    /**
+     * Sets the number of users tracked between two deadline checks with the {@link Schedule#BURST} schedule.
+     *
+     * @param chunkSize the chunk size, from {@code tracker.chunk-size}
+     */
+    @Value("${tracker.chunk-size:500}")
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("tracker.chunk-size must be at least 1");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Sets how long a {@link OverrunPolicy#SKIP} or {@link OverrunPolicy#CATCH_UP} cycle may run past
+     * its deadline before the users it has not reached are deferred to the next cycle.
+     *
+     * @param maxOverrun the maximum overrun, from {@code tracker.max-overrun}; zero for one interval
+     */
+    @Value("${tracker.max-overrun:0s}")
+    public void setMaxOverrun(Duration maxOverrun) {
+        if (maxOverrun.isNegative()) {
+            throw new IllegalArgumentException("tracker.max-overrun must not be negative");
+        }
+        this.maxOverrun = maxOverrun;
+    }
+
+    /**
+     * Sets the meters recording cycle progress and overruns.
+     *
+     * @param metrics the shared TourGuide metrics
+     */
+    @Autowired
+    public void setMetrics(TourGuideMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets the clock that {@link Schedule#BURST} cycle deadlines are measured with. Only its
+     * monotonic time is used; the scheduler still waits in real time.
+     *
+     * @param clock the clock, {@link Clock#SYSTEM} by default
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Restricts tracking to the users this node owns.
+     *
+     * @param ownership the user ownership of this node
+     */
+    @Autowired(required = false)
+    public void setOwnership(UserOwnership ownership) {
+        this.ownership = ownership;
+    }
+
     /**
      * Stops the tracking process and shuts down the scheduler.
+     * A running cycle stops after its current chunks.
      */
     public void stopTracking() {
         stop = true;
         scheduler.shutdown();
+        if (partitionWorkers != null) {
+            partitionWorkers.shutdown();
+        }
         log.info("Tracker stopped");
     }
 
     /**
-     * Starts tracking user locations at a fixed interval.
+     * Starts tracking user locations with the configured schedule.
      * <p>
-     * The tracker retrieves all registered users and asynchronously updates their locations.
+     * The tracker walks all registered users and asynchronously updates their locations.
      * It logs execution time to monitor performance.
      * </p>
      *
@@ -69,23 +319,271 @@ public class Tracker {
      */
     @PostConstruct
     public void startTracking() {
-        log.info("Tracker start");
-        scheduler.scheduleAtFixedRate(() -> {
-            StopWatch stopWatch = new StopWatch();
-            List<User> users = tourGuideService.getAllUsers();
-            log.info("Begin Tracker. Tracking {} users.", users.size());
-            stopWatch.start();
+        log.info("Tracker start ({} schedule, interval {})", schedule, trackingPollingInterval);
+        if (schedule == Schedule.BURST) {
+            AtomicInteger threadCount = new AtomicInteger();
+            partitionWorkers = Executors.newFixedThreadPool(partitions, runnable -> {
+                Thread thread = new Thread(runnable, "tracker-partition-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduleCycle(0);
+            return;
+        }
+        wheel = new TrackingWheel(wheelSlots);
+        long tickNanos = Math.max(1, trackingPollingInterval.toNanos() / wheelSlots);
+        scheduler.scheduleAtFixedRate(() -> tick(tickNanos), 0, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void scheduleCycle(long delayNanos) {
+        if (stop) {
+            return;
+        }
+        try {
+            scheduler.schedule(this::runCycle, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Tracker stopped before the next cycle was scheduled");
+        }
+    }
+
+    /**
+     * Runs one {@link Schedule#BURST} cycle, applies the overrun policy and schedules the next cycle.
+     */
+    private void runCycle() {
+        long intervalNanos = trackingPollingInterval.toNanos();
+        long start = clock.monotonicTime();
+        long deadline = start + intervalNanos;
+        long nextDelay;
+        try {
+            long cutoff = overrunPolicy == OverrunPolicy.SHRINK ? deadline
+                    : deadline + (maxOverrun.isZero() ? intervalNanos : maxOverrun.toNanos());
+            log.info("Begin Tracker. Tracking up to {} users in {} partitions.",
+                    tourGuideService.getUserRepository().size(), partitions);
+            Cycle cycle = new Cycle(deadline, cutoff);
+            List<List<User>> remaining = trackPartitions(cycle);
+            int deferred = remaining.stream().mapToInt(List::size).sum();
+            int tracked = cycle.tracked.get();
+
+            if (!stop && deferred == 0) {
+                Duration rewardsAwaitTimeout = tourGuideService.getRewardsAwaitTimeout();
+                if (!rewardsAwaitTimeout.isZero() && !tourGuideService.awaitRewards(rewardsAwaitTimeout)) {
+                    log.warn("Rewards still pending {} after the tracking cycle", rewardsAwaitTimeout);
+                }
+            }
+            long end = clock.monotonicTime();
+            carryOver = remaining;
+
+            boolean overrun = end > deadline || deferred > 0;
+            if (overrun) {
+                metrics.trackerOverruns().increment();
+                metrics.deferredUsers().increment(deferred);
+                log.warn("Tracking cycle overran its {} interval: {} ms, {} users tracked, {} deferred ({} policy)",
+                        trackingPollingInterval, TimeUnit.NANOSECONDS.toMillis(end - start),
+                        tracked, deferred, overrunPolicy);
+            } else {
+                log.debug("Tracker Time Elapsed: {} ms.", TimeUnit.NANOSECONDS.toMillis(end - start));
+            }
+            metrics.recordTrackerCycleTime(tracked, end - start);
+
+            if (end <= deadline) {
+                nextDelay = deadline - end;
+            } else if (overrunPolicy == OverrunPolicy.SKIP) {
+                nextDelay = intervalNanos - (end - start) % intervalNanos;
+            } else {
+                nextDelay = 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception ex) {
+            log.error("Error while tracking user locations: {}", ex.getMessage());
+            nextDelay = Math.max(0, deadline - clock.monotonicTime());
+        }
+        scheduleCycle(nextDelay);
+    }
+
+    /** Returns the registered users this node tracks. */
+    private Iterable<User> trackedUsers() {
+        return ownership == null ? tourGuideService.getUserRepository() : ownership.owned(tourGuideService.getUserRepository());
+    }
+
+    /** The deadlines and progress of a running {@link Schedule#BURST} cycle, shared by its partitions. */
+    private static final class Cycle {
+        private final long deadline;
+        private final long cutoff;
+        private final AtomicInteger tracked = new AtomicInteger();
+        private final AtomicBoolean late = new AtomicBoolean();
 
+        private Cycle(long deadline, long cutoff) {
+            this.deadline = deadline;
+            this.cutoff = cutoff;
+        }
+    }
+
+    /**
+     * Tracks the partitions in parallel, checking the deadline and cutoff between chunks.
+     *
+     * @return the users of each partition not tracked because the cutoff passed or the tracker was
+     *         stopped, in the order they would have been tracked
+     */
+    private List<List<User>> trackPartitions(Cycle cycle) throws InterruptedException {
+        metrics.setTrackerProgress(0);
+        List<Future<List<User>>> futures = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            List<User> carried = partition < carryOver.size() ? carryOver.get(partition) : List.of();
+            int index = partition;
+            futures.add(partitionWorkers.submit(() -> trackPartition(index, carried, cycle)));
+        }
+        List<List<User>> remaining = new ArrayList<>(partitions);
+        for (Future<List<User>> future : futures) {
             try {
-                tourGuideService.trackAllUserLocations(users);
-            } catch (Exception ex) {
-                log.error("Error while tracking user locations: {}", ex.getMessage());
+                remaining.add(future.get());
+            } catch (ExecutionException e) {
+                remaining.add(List.of());
+                log.error("Error while tracking a partition: {}", e.getCause().getMessage());
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Tracks one partition: the users it carried over from the previous cycle first, then the other
+     * users of its shards, walked in place.
+     */
+    private List<User> trackPartition(int partition, List<User> carried, Cycle cycle) {
+        Iterator<User> users = partitionUsers(partition, carried);
+        List<User> chunk = new ArrayList<>(chunkSize);
+        while (users.hasNext()) {
+            long now = clock.monotonicTime();
+            if (stop || now >= cycle.cutoff) {
+                List<User> remaining = new ArrayList<>();
+                users.forEachRemaining(remaining::add);
+                return remaining;
+            }
+            if (now >= cycle.deadline && cycle.late.compareAndSet(false, true)) {
+                log.warn("Tracking cycle passed its {} deadline after {} users, continuing ({} policy)",
+                        trackingPollingInterval, cycle.tracked.get(), overrunPolicy);
+            }
+            chunk.clear();
+            while (chunk.size() < chunkSize && users.hasNext()) {
+                chunk.add(users.next());
             }
+            tourGuideService.trackUserLocations(chunk);
+            int done = cycle.tracked.addAndGet(chunk.size());
+            metrics.setTrackerProgress(done);
+            log.debug("Tracked {} users", done);
+        }
+        return List.of();
+    }
 
-            stopWatch.stop();
-            log.debug("Tracker Time Elapsed: {} seconds.", TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()));
-            stopWatch.reset();
-        }, 0, trackingPollingInterval, TimeUnit.SECONDS);
+    /**
+     * Returns the users of a partition this node tracks: the carried over users, then the users of
+     * the shards whose index maps to the partition, skipping the carried over ones.
+     */
+    private Iterator<User> partitionUsers(int partition, List<User> carried) {
+        UserRepository repository = tourGuideService.getUserRepository();
+        Set<UUID> carriedIds = new HashSet<>();
+        List<User> first = new ArrayList<>(carried.size());
+        for (User user : carried) {
+            if (ownership == null || ownership.owns(user)) {
+                carriedIds.add(user.getUserId());
+                first.add(user);
+            }
+        }
+        Iterator<User> carriedUsers = first.iterator();
+        return new Iterator<>() {
+            private int shard = partition;
+            private Iterator<User> current = carriedUsers;
+            private User next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    if (current.hasNext()) {
+                        User user = current.next();
+                        if (current == carriedUsers || !carriedIds.contains(user.getUserId())
+                                && (ownership == null || ownership.owns(user))) {
+                            next = user;
+                        }
+                    } else if (shard < repository.getShardCount()) {
+                        current = repository.shard(shard).iterator();
+                        shard += partitions;
+                    } else {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public User next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                User user = next;
+                next = null;
+                return user;
+            }
+        };
+    }
+
+    /**
+     * Tracks the users of the current slot, within the rate limit, and moves to the next slot.
+     */
+    private void tick(long tickNanos) {
+        if (stop) {
+            return;
+        }
+        try {
+            if (cursor == 0) {
+                long now = clock.monotonicTime();
+                if (revolutionStart >= 0) {
+                    metrics.recordTrackerCycleTime(revolutionTracked, now - revolutionStart);
+                }
+                revolutionStart = now;
+                revolutionTracked = 0;
+                if (!backlog.isEmpty()) {
+                    metrics.trackerOverruns().increment();
+                    metrics.deferredUsers().increment(backlog.size());
+                    log.warn("Tracker revolution starts with {} users of the previous one still waiting", backlog.size());
+                }
+                wheel.rebuild(trackedUsers());
+                if (ownership != null) {
+                    backlog.removeIf(user -> !ownership.owns(user) && backlogIds.remove(user.getUserId()));
+                }
+                log.debug("Tracker revolution: {} users over {} slots, {} deferred",
+                        wheel.size(), wheel.getSlotCount(), backlog.size());
+            }
+            for (User user : wheel.slot(cursor)) {
+                if (backlogIds.add(user.getUserId())) {
+                    backlog.add(user);
+                }
+            }
+            cursor = (cursor + 1) % wheel.getSlotCount();
+
+            long budget = Long.MAX_VALUE;
+            if (maxRate > 0) {
+                // unused credit is capped so an idle wheel does not save up a burst
+                double perTick = (double) maxRate * tickNanos / TimeUnit.SECONDS.toNanos(1);
+                rateCredit = Math.min(rateCredit + perTick, Math.max(1, perTick));
+                budget = (long) rateCredit;
+            }
+            List<User> users = new ArrayList<>();
+            while (!backlog.isEmpty() && users.size() < budget) {
+                User user = backlog.poll();
+                backlogIds.remove(user.getUserId());
+                users.add(user);
+            }
+            if (maxRate > 0) {
+                rateCredit -= users.size();
+            }
+            if (!users.isEmpty()) {
+                revolutionTracked += users.size();
+                tourGuideService.trackUserLocations(users);
+            }
+        } catch (Exception ex) {
+            log.error("Error while tracking user locations: {}", ex.getMessage());
+        }
     }
 
 }
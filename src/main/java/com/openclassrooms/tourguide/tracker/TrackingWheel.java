@@ -0,0 +1,99 @@
+package com.openclassrooms.tourguide.tracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import com.openclassrooms.tourguide.user.User;
+
+/**
+ * The {@code TrackingWheel} class is a hashed timing wheel spreading users over the slots of one
+ * tracking interval.
+ *
+ * <p>Each user is placed in the slot given by a hash of its id, so a user keeps the same offset in
+ * every interval and users land evenly across slots. The wheel is rebuilt from the registered users
+ * once per revolution, which picks up users added since the previous one.</p>
+ */
+public class TrackingWheel {
+
+    private final List<List<User>> slots;
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param slotCount the number of slots in one revolution
+     */
+    public TrackingWheel(int slotCount) {
+        if (slotCount < 1) {
+            throw new IllegalArgumentException("slotCount must be at least 1");
+        }
+        List<List<User>> wheel = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            wheel.add(List.of());
+        }
+        this.slots = wheel;
+    }
+
+    /**
+     * Returns the slot of a user.
+     *
+     * @param userId    the user id
+     * @param slotCount the number of slots
+     * @return the slot index, from 0 to {@code slotCount - 1}
+     */
+    public static int slotOf(UUID userId, int slotCount) {
+        long hash = userId.getMostSignificantBits() ^ userId.getLeastSignificantBits();
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return (int) Math.floorMod(hash, (long) slotCount);
+    }
+
+    /**
+     * Places every given user in its slot, replacing the previous content of the wheel.
+     *
+     * @param users the users to schedule
+     */
+    public void rebuild(Iterable<User> users) {
+        int slotCount = slots.size();
+        List<List<User>> wheel = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        for (User user : users) {
+            wheel.get(slotOf(user.getUserId(), slotCount)).add(user);
+        }
+        for (int i = 0; i < slotCount; i++) {
+            slots.set(i, Collections.unmodifiableList(wheel.get(i)));
+        }
+    }
+
+    /**
+     * Returns the users of a slot.
+     *
+     * @param slot the slot index
+     * @return an unmodifiable list of users
+     */
+    public List<User> slot(int slot) {
+        return slots.get(slot);
+    }
+
+    /**
+     * Returns the number of slots.
+     *
+     * @return the slot count
+     */
+    public int getSlotCount() {
+        return slots.size();
+    }
+
+    /**
+     * Returns the number of users on the wheel.
+     *
+     * @return the user count
+     */
+    public int size() {
+        return slots.stream().mapToInt(List::size).sum();
+    }
+}
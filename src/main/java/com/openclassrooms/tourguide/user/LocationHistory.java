@@ -0,0 +1,227 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+/**
+ * The {@code LocationHistory} class is a compact, bounded history of the locations visited by one user.
+ *
+ * <p>Entries are stored in a ring buffer of primitive latitude, longitude and epoch-millis columns,
+ * instead of one {@link VisitedLocation}, {@link Location} and {@link Date} per entry, and
+ * {@link VisitedLocation} objects are only built when the history is read. Appending is O(1): the
+ * buffer doubles until it reaches the retention limit, after which each append overwrites the
+ * oldest entry.</p>
+ *
+ * <p>Each history has its own {@link LocationRetention}, given when it is created and replaceable
+ * with {@link #setRetention(LocationRetention)}. An append evicts the oldest entries once the history
+ * holds more than the maximum number of entries, and evicts entries older than the maximum age
+ * relative to the appended entry starting from the oldest one. Age eviction stops at the first entry
+ * young enough: entries are expected in time order, and an older entry appended after a younger one
+ * is only evicted once everything before it is.</p>
+ *
+ * <p>Each appended entry receives a sequence number that keeps increasing as older entries are
+ * evicted, so readers such as the rewards service can resume from where they stopped.</p>
+ */
+public class LocationHistory {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final UUID userId;
+    private LocationRetention retention;
+    private double[] latitudes = new double[INITIAL_CAPACITY];
+    private double[] longitudes = new double[INITIAL_CAPACITY];
+    private long[] times = new long[INITIAL_CAPACITY];
+    /** Buffer index of the oldest entry. */
+    private int head;
+    private int size;
+    /** Sequence number of the oldest entry. */
+    private long firstSequence;
+
+    /**
+     * Creates an empty history with the {@link LocationRetention#DEFAULT default} retention.
+     *
+     * @param userId the user the visited locations belong to
+     */
+    public LocationHistory(UUID userId) {
+        this(userId, LocationRetention.DEFAULT);
+    }
+
+    /**
+     * Creates an empty history.
+     *
+     * @param userId    the user the visited locations belong to
+     * @param retention the retention applied on every append
+     */
+    public LocationHistory(UUID userId, LocationRetention retention) {
+        this.userId = userId;
+        this.retention = retention;
+    }
+
+    /**
+     * Replaces the retention, applied from the next append on.
+     *
+     * @param retention the new retention
+     */
+    public synchronized void setRetention(LocationRetention retention) {
+        this.retention = retention;
+    }
+
+    /**
+     * Returns the retention applied on every append.
+     *
+     * @return the retention
+     */
+    public synchronized LocationRetention getRetention() {
+        return retention;
+    }
+
+    /**
+     * Appends a visited location, evicting the entries that fall outside the retention limits.
+     *
+     * @param visitedLocation the visited location
+     */
+    public synchronized void add(VisitedLocation visitedLocation) {
+        long time = visitedLocation.timeVisited.getTime();
+        int limit = retention.maxEntries();
+        long maxAge = retention.maxAge().toMillis();
+
+        while (size >= limit) {
+            evictOldest();
+        }
+        if (maxAge > 0) {
+            while (size > 0 && times[head] < time - maxAge) {
+                evictOldest();
+            }
+        }
+        if (size == latitudes.length) {
+            resize(Math.min(limit, latitudes.length * 2));
+        }
+
+        int slot = (head + size) % latitudes.length;
+        latitudes[slot] = visitedLocation.location.latitude;
+        longitudes[slot] = visitedLocation.location.longitude;
+        times[slot] = time;
+        size++;
+    }
+
+    /**
+     * Returns the number of retained entries.
+     *
+     * @return the history size
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Indicates whether the history holds no entry.
+     *
+     * @return {@code true} if the history is empty
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the sequence number that the next appended entry will receive.
+     *
+     * @return the end sequence number
+     */
+    public synchronized long endSequence() {
+        return firstSequence + size;
+    }
+
+    /**
+     * Returns the latest entry.
+     *
+     * @return the latest visited location
+     * @throws NoSuchElementException if the history is empty
+     */
+    public synchronized VisitedLocation getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("No visited location");
+        }
+        return toVisitedLocation((head + size - 1) % latitudes.length);
+    }
+
+    /**
+     * Returns a snapshot of the retained entries, oldest first.
+     *
+     * @return an unmodifiable list of visited locations
+     */
+    public synchronized List<VisitedLocation> toList() {
+        return since(firstSequence).locations();
+    }
+
+    /**
+     * Returns a snapshot of the entries appended from the given sequence number on, oldest first.
+     * A sequence number that was already evicted starts the snapshot at the oldest retained entry,
+     * and one beyond the end (after {@link #clear()}) starts it over from the beginning.
+     *
+     * @param sequence the sequence number of the first wanted entry
+     * @return the matching entries and the sequence number following the last one
+     */
+    public synchronized Slice since(long sequence) {
+        long end = firstSequence + size;
+        long from = sequence > end ? firstSequence : Math.max(sequence, firstSequence);
+        List<VisitedLocation> locations = new ArrayList<>((int) (end - from));
+        for (long s = from; s < end; s++) {
+            locations.add(toVisitedLocation((head + (int) (s - firstSequence)) % latitudes.length));
+        }
+        return new Slice(Collections.unmodifiableList(locations), end);
+    }
+
+    /**
+     * Removes every entry and restarts the sequence numbers from zero.
+     */
+    public synchronized void clear() {
+        latitudes = new double[INITIAL_CAPACITY];
+        longitudes = new double[INITIAL_CAPACITY];
+        times = new long[INITIAL_CAPACITY];
+        head = 0;
+        size = 0;
+        firstSequence = 0;
+    }
+
+    private void evictOldest() {
+        head = (head + 1) % latitudes.length;
+        size--;
+        firstSequence++;
+    }
+
+    private void resize(int capacity) {
+        double[] newLatitudes = new double[capacity];
+        double[] newLongitudes = new double[capacity];
+        long[] newTimes = new long[capacity];
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % latitudes.length;
+            newLatitudes[i] = latitudes[slot];
+            newLongitudes[i] = longitudes[slot];
+            newTimes[i] = times[slot];
+        }
+        latitudes = newLatitudes;
+        longitudes = newLongitudes;
+        times = newTimes;
+        head = 0;
+    }
+
+    private VisitedLocation toVisitedLocation(int slot) {
+        return new VisitedLocation(userId, new Location(latitudes[slot], longitudes[slot]), new Date(times[slot]));
+    }
+
+    /**
+     * A snapshot of consecutive history entries.
+     *
+     * @param locations   the entries, oldest first
+     * @param endSequence the sequence number following the last entry
+     */
+    public record Slice(List<VisitedLocation> locations, long endSequence) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.openclassrooms.tourguide.user;
+
+import java.time.Duration;
+
+/**
+ * How many visited locations a {@link LocationHistory} keeps, and for how long.
+ *
+ * @param maxEntries the maximum number of entries kept per user
+ * @param maxAge     the maximum age of an entry relative to the latest one; zero keeps entries regardless of age
+ */
+public record LocationRetention(int maxEntries, Duration maxAge) {
+
+    /** The retention of a history created without one: 1000 entries over 30 days. */
+    public static final LocationRetention DEFAULT = new LocationRetention(1000, Duration.ofDays(30));
+
+    public LocationRetention {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        maxAge = maxAge == null || maxAge.isNegative() ? Duration.ZERO : maxAge;
+    }
+}
@@ -1,9 +1,14 @@
 package com.openclassrooms.tourguide.user;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import tripPricer.Provider;
 
@@ -13,16 +18,27 @@ public class User {
 	private String phoneNumber;
 	private String emailAddress;
 	private Date latestLocationTimestamp;
-	private final List<VisitedLocation> visitedLocations = new CopyOnWriteArrayList<>();
-	private List<UserReward> userRewards = new ArrayList<>();
+	private final LocationHistory locationHistory;
+	// copy-on-write so rewards can be read while the rewards service adds new ones
+	private final List<UserReward> userRewards = new CopyOnWriteArrayList<>();
+	// rewards indexed by attraction name, for constant-time "already rewarded?" checks
+	private final Map<String, UserReward> rewardsByAttraction = new ConcurrentHashMap<>();
 	private UserPreferences userPreferences = new UserPreferences();
 	private List<Provider> tripDeals = new ArrayList<>();
+	// sequence number of the first visited location not yet evaluated by the rewards service, valid for one evaluation epoch
+	private long rewardsWatermark;
+	// where the user was at the last location the rewards service evaluated, valid for the same epoch
+	private Location rewardsLocation;
+	private long rewardsEpoch = -1;
+	// serializes reward calculation for this user; a Lock rather than a monitor so virtual threads are not pinned
+	private final Lock rewardsLock = new ReentrantLock();
 
 	public User(UUID userId, String userName, String phoneNumber, String emailAddress) {
 		this.userId = userId;
 		this.userName = userName;
 		this.phoneNumber = phoneNumber;
 		this.emailAddress = emailAddress;
+		this.locationHistory = new LocationHistory(userId);
 	}
 	
 	public UUID getUserId() {
@@ -58,18 +74,73 @@ public class User {
 	}
 	
 	public  void addToVisitedLocations(VisitedLocation visitedLocation) {
-		visitedLocations.add(visitedLocation);
+		locationHistory.add(visitedLocation);
 	}
 	
+	/**
+	 * Returns a snapshot of the retained visited locations, oldest first.
+	 *
+	 * @return an unmodifiable list of visited locations
+	 */
 	public List<VisitedLocation> getVisitedLocations() {
-		return visitedLocations;
+		return locationHistory.toList();
+	}
+
+	public LocationHistory getLocationHistory() {
+		return locationHistory;
 	}
 	
-	public void clearVisitedLocations() {
-		visitedLocations.clear();
+	public synchronized void clearVisitedLocations() {
+		locationHistory.clear();
+		rewardsWatermark = 0;
+		rewardsLocation = null;
+	}
+
+	/**
+	 * Returns the sequence number, in the location history, of the first visited location
+	 * the rewards service has not evaluated yet.
+	 *
+	 * @param epoch the current evaluation epoch of the rewards service
+	 * @return the watermark, or 0 if it was recorded under another epoch
+	 */
+	public synchronized long getRewardsWatermark(long epoch) {
+		return epoch == rewardsEpoch ? rewardsWatermark : 0;
+	}
+
+	/**
+	 * Returns the position of the last visited location the rewards service evaluated.
+	 *
+	 * @param epoch the current evaluation epoch of the rewards service
+	 * @return the position, or {@code null} if nothing was evaluated under this epoch
+	 */
+	public synchronized Location getRewardsLocation(long epoch) {
+		return epoch == rewardsEpoch ? rewardsLocation : null;
+	}
+
+	/**
+	 * Records the sequence number of the first visited location the rewards service has not evaluated
+	 * yet, with the position of the last one it evaluated.
+	 *
+	 * @param watermark the sequence number following the last evaluated location
+	 * @param epoch     the evaluation epoch the locations were evaluated under
+	 * @param location  the position of the last evaluated location, or {@code null} if there was none
+	 */
+	public synchronized void setRewardsWatermark(long watermark, long epoch, Location location) {
+		this.rewardsWatermark = watermark;
+		this.rewardsEpoch = epoch;
+		this.rewardsLocation = location;
 	}
 
 
+	/**
+	 * Returns the lock held by the rewards service while it calculates this user's rewards.
+	 *
+	 * @return the rewards lock
+	 */
+	public Lock getRewardsLock() {
+		return rewardsLock;
+	}
+
 	/*public  void addUserReward(UserReward userReward) {
 		if(userRewards.stream().filter(r -> r.attraction.attractionName.equals(userReward.attraction.attractionName)).count() == 0) {
 			userRewards.add(userReward);
@@ -78,14 +149,37 @@ public class User {
 
 	 */
 
-	public synchronized void addUserReward(UserReward userReward) {
-		if(userRewards.stream().noneMatch(r -> r.attraction.attractionName.equals(userReward.attraction.attractionName))) {
+	/**
+	 * Adds a reward unless the user was already rewarded for the same attraction.
+	 *
+	 * @param userReward the reward to add
+	 * @return {@code true} if the reward was added
+	 */
+	public boolean addUserReward(UserReward userReward) {
+		if (rewardsByAttraction.putIfAbsent(userReward.attraction.attractionName, userReward) == null) {
 			userRewards.add(userReward);
+			return true;
 		}
+		return false;
 	}
 
+	/**
+	 * Indicates whether the user was already rewarded for an attraction, in constant time.
+	 *
+	 * @param attraction the attraction
+	 * @return {@code true} if a reward exists for the attraction
+	 */
+	public boolean hasRewardFor(Attraction attraction) {
+		return rewardsByAttraction.containsKey(attraction.attractionName);
+	}
+
+	/**
+	 * Returns the user's rewards in the order they were granted.
+	 *
+	 * @return an unmodifiable view of the rewards
+	 */
 	public  List<UserReward> getUserRewards() {
-		return userRewards;
+		return Collections.unmodifiableList(userRewards);
 	}
 	
 	public UserPreferences getUserPreferences() {
@@ -97,7 +191,7 @@ public class User {
 	}
 
 	public VisitedLocation getLastVisitedLocation() {
-		return visitedLocations.get(visitedLocations.size() - 1);
+		return locationHistory.getLast();
 	}
 	
 	public void setTripDeals(List<Provider> tripDeals) {
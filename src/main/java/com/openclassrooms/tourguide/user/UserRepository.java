@@ -0,0 +1,170 @@
+package com.openclassrooms.tourguide.user;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * The {@code UserRepository} class is a thread-safe, in-memory store of users, looked up by
+ * user name or by user id.
+ *
+ * <p>Users are spread over a fixed number of shards by user name. Each shard is a
+ * {@link ConcurrentHashMap}, so adding users never blocks readers, and the shards can be walked
+ * one by one, or in parallel, through live views instead of a copy of every user. Iteration is
+ * weakly consistent: it never fails while users are added, and may or may not see users added
+ * after it started.</p>
+ */
+public class UserRepository implements Iterable<User> {
+
+    /** Default number of shards. */
+    public static final int DEFAULT_SHARD_COUNT = 64;
+
+    private final List<Map<String, User>> shards;
+    private final Map<UUID, User> usersById = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty repository with {@link #DEFAULT_SHARD_COUNT} shards.
+     */
+    public UserRepository() {
+        this(DEFAULT_SHARD_COUNT);
+    }
+
+    /**
+     * Creates an empty repository.
+     *
+     * @param shardCount the number of shards
+     */
+    public UserRepository(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be at least 1");
+        }
+        List<Map<String, User>> maps = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            maps.add(new ConcurrentHashMap<>());
+        }
+        this.shards = Collections.unmodifiableList(maps);
+    }
+
+    /**
+     * Adds a user unless another user already has the same user name.
+     *
+     * @param user the user to add
+     * @return {@code true} if the user was added
+     */
+    public boolean add(User user) {
+        if (shardFor(user.getUserName()).putIfAbsent(user.getUserName(), user) != null) {
+            return false;
+        }
+        usersById.put(user.getUserId(), user);
+        return true;
+    }
+
+    /**
+     * Finds a user by user name.
+     *
+     * @param userName the user name
+     * @return the user, or {@code null} if none has this name
+     */
+    public User findByUserName(String userName) {
+        return shardFor(userName).get(userName);
+    }
+
+    /**
+     * Finds a user by id.
+     *
+     * @param userId the user id
+     * @return the user, or {@code null} if none has this id
+     */
+    public User findById(UUID userId) {
+        return usersById.get(userId);
+    }
+
+    /**
+     * Indicates whether a user has the given user name.
+     *
+     * @param userName the user name
+     * @return {@code true} if the user name is taken
+     */
+    public boolean contains(String userName) {
+        return shardFor(userName).containsKey(userName);
+    }
+
+    /**
+     * Returns the number of users.
+     *
+     * @return the repository size
+     */
+    public int size() {
+        return usersById.size();
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Returns a live, unmodifiable view of the users of one shard.
+     *
+     * @param shard the shard index, from 0 to {@link #getShardCount()} - 1
+     * @return the users of the shard
+     */
+    public Collection<User> shard(int shard) {
+        return Collections.unmodifiableCollection(shards.get(shard).values());
+    }
+
+    /**
+     * Returns a stream over every user. A parallel stream splits the work by shard.
+     *
+     * @return a stream of users
+     */
+    public Stream<User> stream() {
+        return IntStream.range(0, shards.size()).boxed().flatMap(i -> shards.get(i).values().stream());
+    }
+
+    /**
+     * Returns an iterator walking the shards one after the other, without copying them.
+     *
+     * @return an iterator over every user
+     */
+    @Override
+    public Iterator<User> iterator() {
+        return new Iterator<>() {
+            private int shard;
+            private Iterator<User> current = shards.get(0).values().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && shard < shards.size() - 1) {
+                    current = shards.get(++shard).values().iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public User next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    private Map<String, User> shardFor(String userName) {
+        int hash = userName.hashCode();
+        return shards.get(Math.floorMod(hash ^ (hash >>> 16), shards.size()));
+    }
+}
@@ -0,0 +1,149 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.attraction.AttractionIndex;
+import com.openclassrooms.tourguide.attraction.DistanceKernel;
+import com.openclassrooms.tourguide.service.RewardsService;
+
+public class TestAttractionIndex {
+
+	private final RewardsService rewardsService = new RewardsService(new GpsUtil(), new RewardCentral(), null);
+
+	private List<Attraction> randomAttractions(Random random, int count) {
+		List<Attraction> attractions = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			attractions.add(new Attraction("attraction" + i, "city", "state",
+					-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360));
+		}
+		return attractions;
+	}
+
+	@Test
+	public void findWithinMatchesFullScan() {
+		Random random = new Random(42);
+		List<Attraction> attractions = randomAttractions(random, 2000);
+		AttractionIndex index = new AttractionIndex(attractions);
+
+		for (int i = 0; i < 200; i++) {
+			Location location = new Location(-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360);
+			double miles = random.nextDouble() * 1500;
+
+			Set<String> expected = attractions.stream()
+					.filter(a -> rewardsService.getDistance(a, location) <= miles)
+					.map(a -> a.attractionName)
+					.collect(Collectors.toSet());
+			Set<String> actual = new HashSet<>();
+			index.findWithin(location, miles).forEach(a -> actual.add(a.attractionName));
+
+			assertEquals(expected, actual);
+		}
+	}
+
+	@Test
+	public void findWithinAcrossAntimeridian() {
+		List<Attraction> attractions = List.of(
+				new Attraction("east", "city", "state", 0, 179.9),
+				new Attraction("west", "city", "state", 0, -179.9),
+				new Attraction("far", "city", "state", 0, 0));
+		AttractionIndex index = new AttractionIndex(attractions);
+
+		Set<String> actual = new HashSet<>();
+		index.findWithin(new Location(0, 180), 10).forEach(a -> actual.add(a.attractionName));
+
+		assertEquals(Set.of("east", "west"), actual);
+	}
+
+	@Test
+	public void findWithinUnboundedRadiusReturnsCatalog() {
+		List<Attraction> attractions = new GpsUtil().getAttractions();
+		AttractionIndex index = new AttractionIndex(attractions);
+
+		assertEquals(attractions.size(), index.findWithin(new Location(0, 0), Integer.MAX_VALUE).size());
+	}
+
+	@Test
+	public void findWithinNearPoles() {
+		Random random = new Random(3);
+		List<Attraction> attractions = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			attractions.add(new Attraction("attraction" + i, "city", "state",
+					80 + random.nextDouble() * 10, -180 + random.nextDouble() * 360));
+		}
+		AttractionIndex index = new AttractionIndex(attractions);
+		Location location = new Location(88, 10);
+
+		long expected = attractions.stream().filter(a -> rewardsService.getDistance(a, location) <= 300).count();
+
+		assertEquals(expected, index.findWithin(location, 300).size());
+	}
+
+	@Test
+	public void distanceMatchesLawOfCosinesAndStaysAccurateAtShortRange() {
+		Random random = new Random(11);
+		for (int i = 0; i < 1000; i++) {
+			double lat1 = -85 + random.nextDouble() * 170;
+			double lon1 = -180 + random.nextDouble() * 360;
+			double lat2 = -85 + random.nextDouble() * 170;
+			double lon2 = -180 + random.nextDouble() * 360;
+			double angle = Math.acos(Math.sin(Math.toRadians(lat1)) * Math.sin(Math.toRadians(lat2))
+					+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.cos(Math.toRadians(lon1 - lon2)));
+
+			assertEquals(angle * DistanceKernel.EARTH_RADIUS_MILES, DistanceKernel.distanceMiles(lat1, lon1, lat2, lon2), 1e-6);
+		}
+
+		// one foot apart along the equator, where acos(~1) would round to zero or to several feet
+		double oneFootInDegrees = Math.toDegrees(1.0 / 5280 / DistanceKernel.EARTH_RADIUS_MILES);
+		assertEquals(1.0 / 5280, DistanceKernel.distanceMiles(0, 0, 0, oneFootInDegrees), 1e-12);
+	}
+
+	@Test
+	public void findNearestMatchesFullScan() {
+		Random random = new Random(7);
+		List<Attraction> attractions = randomAttractions(random, 2000);
+		AttractionIndex index = new AttractionIndex(attractions);
+
+		for (int i = 0; i < 200; i++) {
+			Location location = new Location(-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360);
+
+			List<Double> expected = attractions.stream()
+					.map(a -> rewardsService.getDistance(a, location))
+					.sorted(Comparator.naturalOrder())
+					.limit(5)
+					.toList();
+			List<Attraction> nearest = index.findNearest(location, 5);
+
+			assertEquals(5, nearest.size());
+			for (int j = 0; j < 5; j++) {
+				assertEquals(expected.get(j), rewardsService.getDistance(nearest.get(j), location), 1e-6);
+			}
+		}
+	}
+
+	@Test
+	public void findNearestLimitedByCatalogSize() {
+		List<Attraction> attractions = new GpsUtil().getAttractions();
+		AttractionIndex index = new AttractionIndex(attractions);
+
+		List<Attraction> nearest = index.findNearest(new Location(33.817595, -117.922008), attractions.size() + 10);
+
+		assertEquals(attractions.size(), nearest.size());
+		assertTrue(nearest.get(0).attractionName.equals("Disneyland"));
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.cluster.ConsistentHashRing;
+import com.openclassrooms.tourguide.cluster.InProcessMembership;
+import com.openclassrooms.tourguide.cluster.UserOwnership;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.tracker.Tracker;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestClusterOwnership {
+
+	@Test
+	public void ringSpreadsUsersAndOnlyMovesTheShareOfAJoiningMember() {
+		List<String> userNames = new ArrayList<>();
+		for (int i = 0; i < 30_000; i++) {
+			userNames.add("internalUser" + i);
+		}
+		ConsistentHashRing three = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+		ConsistentHashRing four = new ConsistentHashRing(List.of("d", "c", "b", "a"), 128);
+
+		Map<String, Integer> counts = new HashMap<>();
+		int moved = 0;
+		for (String userName : userNames) {
+			counts.merge(three.ownerOf(userName), 1, Integer::sum);
+			if (!three.ownerOf(userName).equals(four.ownerOf(userName))) {
+				moved++;
+				assertEquals("d", four.ownerOf(userName));
+			}
+		}
+		counts.values().forEach(count -> assertTrue(count > 8_000 && count < 12_000, "member owns " + count + " users"));
+		assertTrue(moved > 5_000 && moved < 10_000, moved + " users moved");
+	}
+
+	@Test
+	public void inProcessMembersShareUsersAndRebalanceWhenOneLeaves() {
+		InProcessMembership.Group group = new InProcessMembership.Group();
+		UserOwnership first = new UserOwnership(group.join("node-1"), 64);
+		InProcessMembership secondMembership = group.join("node-2");
+		UserOwnership second = new UserOwnership(secondMembership, 64);
+
+		List<String> userNames = new ArrayList<>();
+		for (int i = 0; i < 1_000; i++) {
+			userNames.add("internalUser" + i);
+		}
+		for (String userName : userNames) {
+			assertTrue(first.owns(userName) ^ second.owns(userName));
+		}
+
+		secondMembership.leave();
+		userNames.forEach(userName -> assertTrue(first.owns(userName)));
+	}
+
+	@Test
+	public void ownershipFollowsTheUserNameWhateverTheUserId() {
+		InProcessMembership.Group group = new InProcessMembership.Group();
+		UserOwnership first = new UserOwnership(group.join("node-1"), 64);
+		UserOwnership second = new UserOwnership(group.join("node-2"), 64);
+
+		// nodes generating their users with different seeds know the same user under different ids
+		for (int i = 0; i < 1_000; i++) {
+			User onFirst = new User(UUID.randomUUID(), "internalUser" + i, "000", "internalUser" + i + "@tourGuide.com");
+			User onSecond = new User(UUID.randomUUID(), "internalUser" + i, "000", "internalUser" + i + "@tourGuide.com");
+			assertTrue(first.owns(onFirst) ^ second.owns(onSecond));
+		}
+	}
+
+	@Test
+	public void eachNodeTracksOnlyItsOwnShard() throws InterruptedException {
+		AtomicInteger calls = new AtomicInteger();
+		GpsUtil gpsUtil = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				calls.incrementAndGet();
+				return new VisitedLocation(userId, new Location(0, 0), new Date());
+			}
+		};
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(100);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, executorService);
+
+		InProcessMembership.Group group = new InProcessMembership.Group();
+		CountDownLatch cycles = new CountDownLatch(3);
+		List<Tracker> trackers = new ArrayList<>();
+		for (String nodeId : List.of("node-1", "node-2", "node-3")) {
+			Tracker tracker = new Tracker(tourGuideService);
+			tracker.setOwnership(new UserOwnership(group.join(nodeId), 64));
+			tracker.setSchedule(Tracker.Schedule.BURST);
+			tracker.setTrackingPollingInterval(Duration.ofMinutes(5));
+			tracker.setMetrics(new TourGuideMetrics(new SimpleMeterRegistry()) {
+				@Override
+				public void recordTrackerCycleTime(int users, long elapsedNanos) {
+					super.recordTrackerCycleTime(users, elapsedNanos);
+					cycles.countDown();
+				}
+			});
+			trackers.add(tracker);
+		}
+
+		trackers.forEach(Tracker::startTracking);
+		assertTrue(cycles.await(10, TimeUnit.SECONDS));
+		trackers.forEach(Tracker::stopTracking);
+		executorService.shutdown();
+
+		// one cycle per node, and every user belongs to exactly one node
+		assertEquals(100, calls.get());
+		tourGuideService.getAllUsers().forEach(u -> assertEquals(4, u.getVisitedLocations().size()));
+	}
+}
@@ -0,0 +1,45 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.openclassrooms.tourguide.config.ExecutorConfig;
+import com.openclassrooms.tourguide.config.ExecutorMode;
+
+public class TestExecutorConfig {
+
+	@ParameterizedTest
+	@EnumSource(ExecutorMode.class)
+	public void everyModeRunsBlockingTasksAndShutsDown(ExecutorMode mode) {
+		ExecutorConfig executorConfig = new ExecutorConfig(mode, 4);
+		ExecutorService executorService = executorConfig.executorService();
+		AtomicInteger completed = new AtomicInteger();
+
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			futures.add(CompletableFuture.runAsync(() -> {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				completed.incrementAndGet();
+			}, executorService));
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		executorConfig.shutdownExecutor();
+
+		assertEquals(100, completed.get());
+		assertTrue(executorService.isShutdown());
+	}
+
+}
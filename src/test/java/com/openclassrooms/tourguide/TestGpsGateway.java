@@ -0,0 +1,185 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.openclassrooms.tourguide.gps.GpsGateway;
+import com.openclassrooms.tourguide.gps.GpsTimeoutException;
+import com.openclassrooms.tourguide.gps.LatencyDistribution;
+import com.openclassrooms.tourguide.gps.ResilientGpsGateway;
+import com.openclassrooms.tourguide.gps.SimulatedGpsGateway;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+
+public class TestGpsGateway {
+
+	private static VisitedLocation locate(UUID userId) {
+		return new VisitedLocation(userId, new Location(0, 0), new Date());
+	}
+
+	/** Blocks until the gate opens or the lookup is abandoned, then answers. */
+	private static VisitedLocation awaitAndLocate(UUID userId, CountDownLatch gate) {
+		try {
+			gate.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return locate(userId);
+	}
+
+	@Test
+	public void slowLookupTimesOut() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		CountDownLatch never = new CountDownLatch(1);
+		GpsGateway slow = userId -> awaitAndLocate(userId, never);
+		try (ResilientGpsGateway gateway = new ResilientGpsGateway(slow, Duration.ofMillis(100), Duration.ZERO,
+				new TourGuideMetrics(registry))) {
+			assertThrows(GpsTimeoutException.class, () -> gateway.getUserLocation(UUID.randomUUID()));
+
+			assertEquals(1, registry.get("tourguide.gpsutil.timeouts").counter().count());
+		}
+	}
+
+	@Test
+	public void hedgedLookupAnswersWhenFirstCallIsSlow() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch never = new CountDownLatch(1);
+		GpsGateway firstCallSlow = userId -> calls.getAndIncrement() == 0 ? awaitAndLocate(userId, never) : locate(userId);
+		try (ResilientGpsGateway gateway = new ResilientGpsGateway(firstCallSlow, Duration.ofSeconds(5), Duration.ofMillis(50),
+				new TourGuideMetrics(registry))) {
+			UUID userId = UUID.randomUUID();
+
+			assertEquals(userId, gateway.getUserLocation(userId).userId);
+			assertEquals(2, calls.get());
+			assertEquals(1, registry.get("tourguide.gpsutil.hedges").counter().count());
+		}
+	}
+
+	@Test
+	public void batchRunsLookupsConcurrentlyAndLeavesOutTimedOutUsers() {
+		UUID slowUser = UUID.randomUUID();
+		CountDownLatch never = new CountDownLatch(1);
+		// each lookup waits until all 100 are running, so the batch only completes if they run at once
+		CountDownLatch allRunning = new CountDownLatch(100);
+		GpsGateway delegate = userId -> {
+			if (userId.equals(slowUser)) {
+				return awaitAndLocate(userId, never);
+			}
+			allRunning.countDown();
+			return awaitAndLocate(userId, allRunning);
+		};
+		try (ResilientGpsGateway gateway = new ResilientGpsGateway(delegate, Duration.ofSeconds(1), Duration.ZERO,
+				TourGuideMetrics.standalone())) {
+			List<UUID> userIds = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				userIds.add(UUID.randomUUID());
+			}
+			userIds.add(slowUser);
+
+			Map<UUID, VisitedLocation> locations = gateway.getUserLocations(userIds);
+
+			assertEquals(100, locations.size());
+			assertTrue(!locations.containsKey(slowUser));
+		}
+	}
+
+	@Test
+	public void hedgedLookupSurvivesFailedFirstCall() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		AtomicInteger calls = new AtomicInteger();
+		GpsGateway firstCallFails = userId -> {
+			if (calls.getAndIncrement() == 0) {
+				throw new IllegalStateException("GPS unavailable");
+			}
+			return new VisitedLocation(userId, new Location(0, 0), new Date());
+		};
+		try (ResilientGpsGateway gateway = new ResilientGpsGateway(firstCallFails, Duration.ofSeconds(5), Duration.ofSeconds(5),
+				new TourGuideMetrics(registry))) {
+			UUID userId = UUID.randomUUID();
+
+			assertEquals(userId, gateway.getUserLocation(userId).userId);
+			assertEquals(2, calls.get());
+			assertEquals(1, registry.get("tourguide.gpsutil.hedges").counter().count());
+		}
+	}
+
+	@Test
+	public void abandonedLookupIsInterrupted() throws InterruptedException {
+		CountDownLatch interrupted = new CountDownLatch(1);
+		GpsGateway blocking = userId -> {
+			try {
+				new CountDownLatch(1).await();
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			throw new IllegalStateException("interrupted");
+		};
+		try (ResilientGpsGateway gateway = new ResilientGpsGateway(blocking, Duration.ofMillis(50), Duration.ZERO,
+				TourGuideMetrics.standalone())) {
+			assertThrows(GpsTimeoutException.class, () -> gateway.getUserLocation(UUID.randomUUID()));
+
+			assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void batchCountsFailedLookups() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		UUID failingUser = UUID.randomUUID();
+		UUID user = UUID.randomUUID();
+		GpsGateway delegate = userId -> {
+			if (userId.equals(failingUser)) {
+				throw new IllegalStateException("GPS unavailable");
+			}
+			return new VisitedLocation(userId, new Location(0, 0), new Date());
+		};
+		try (ResilientGpsGateway gateway = new ResilientGpsGateway(delegate, Duration.ofSeconds(5), Duration.ZERO,
+				new TourGuideMetrics(registry))) {
+			Map<UUID, VisitedLocation> locations = gateway.getUserLocations(List.of(user, failingUser));
+
+			assertEquals(Set.of(user), locations.keySet());
+			assertEquals(1, registry.get("tourguide.gpsutil.failures").counter().count());
+		}
+	}
+
+	@Test
+	public void simulatedGatewayFollowsLatencyDistribution() {
+		LatencyDistribution uniform = LatencyDistribution.uniform(Duration.ofMillis(20), Duration.ofMillis(40));
+		SplittableRandom random = new SplittableRandom(1);
+		for (int i = 0; i < 1000; i++) {
+			long millis = uniform.sampleMillis(random);
+			assertTrue(millis >= 20 && millis <= 40);
+		}
+		assertEquals(30, LatencyDistribution.logNormal(Duration.ofMillis(30), 0).sampleMillis(random));
+
+		AtomicInteger samples = new AtomicInteger();
+		SimulatedGpsGateway gateway = new SimulatedGpsGateway(r -> {
+			samples.incrementAndGet();
+			return 0;
+		});
+		UUID userId = UUID.randomUUID();
+		VisitedLocation visitedLocation = gateway.getUserLocation(userId);
+
+		assertEquals(1, samples.get());
+		assertEquals(userId, visitedLocation.userId);
+		assertTrue(Math.abs(visitedLocation.location.latitude) <= 85.05112878);
+	}
+}
@@ -0,0 +1,139 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.helper.InternalUserGenerator;
+import com.openclassrooms.tourguide.persistence.UserSnapshot;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestInternalUsers {
+
+	@TempDir
+	Path directory;
+
+	@AfterEach
+	public void restoreHelper() {
+		InternalTestHelper.setInternalUserSeed(null);
+		InternalTestHelper.setInternalUserSnapshot(null);
+	}
+
+	private void assertSameUser(User expected, User actual) {
+		assertEquals(expected.getUserId(), actual.getUserId());
+		assertEquals(expected.getUserName(), actual.getUserName());
+		assertEquals(expected.getEmailAddress(), actual.getEmailAddress());
+		List<VisitedLocation> expectedLocations = expected.getVisitedLocations();
+		List<VisitedLocation> actualLocations = actual.getVisitedLocations();
+		assertEquals(expectedLocations.size(), actualLocations.size());
+		for (int i = 0; i < expectedLocations.size(); i++) {
+			assertEquals(expectedLocations.get(i).location.latitude, actualLocations.get(i).location.latitude);
+			assertEquals(expectedLocations.get(i).location.longitude, actualLocations.get(i).location.longitude);
+			assertEquals(expectedLocations.get(i).timeVisited, actualLocations.get(i).timeVisited);
+		}
+	}
+
+	@Test
+	public void sameSeedGeneratesSameUsers() {
+		Instant now = Instant.now();
+		List<User> first = new InternalUserGenerator(42, now).generate(1000);
+		List<User> second = new InternalUserGenerator(42, now).generate(1000);
+		List<User> other = new InternalUserGenerator(43, now).generate(1000);
+
+		assertEquals(1000, first.size());
+		for (int i = 0; i < first.size(); i++) {
+			assertEquals("internalUser" + i, first.get(i).getUserName());
+			assertEquals(3, first.get(i).getVisitedLocations().size());
+			assertSameUser(first.get(i), second.get(i));
+		}
+		assertNotEquals(first.get(0).getUserId(), other.get(0).getUserId());
+	}
+
+	@Test
+	public void savesGeneratedUsersToSnapshotAndLoadsThemBack() {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		Path snapshot = directory.resolve("users.snapshot");
+		InternalTestHelper.setInternalUserNumber(200);
+		InternalTestHelper.setInternalUserSnapshot(snapshot);
+
+		TourGuideService generated = new TourGuideService(gpsUtil, rewardsService, executorService);
+		assertTrue(Files.exists(snapshot));
+
+		TourGuideService restored = new TourGuideService(gpsUtil, rewardsService, executorService);
+		executorService.shutdown();
+
+		assertEquals(200, restored.getUserRepository().size());
+		for (User user : generated.getUserRepository()) {
+			assertSameUser(user, restored.getUser(user.getUserName()));
+		}
+	}
+
+	@Test
+	public void regeneratesUsersWhenSnapshotDoesNotMatchConfiguration() {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		Path snapshot = directory.resolve("users.snapshot");
+		InternalTestHelper.setInternalUserSnapshot(snapshot);
+		InternalTestHelper.setInternalUserSeed(42L);
+		InternalTestHelper.setInternalUserNumber(200);
+		new TourGuideService(gpsUtil, rewardsService, executorService);
+
+		InternalTestHelper.setInternalUserNumber(50);
+		TourGuideService resized = new TourGuideService(gpsUtil, rewardsService, executorService);
+		assertEquals(50, resized.getUserRepository().size());
+		assertEquals(50, UserSnapshot.readHeader(snapshot).userCount());
+
+		InternalTestHelper.setInternalUserSeed(43L);
+		TourGuideService reseeded = new TourGuideService(gpsUtil, rewardsService, executorService);
+		executorService.shutdown();
+		assertEquals(43L, UserSnapshot.readHeader(snapshot).seed());
+		User expected = new InternalUserGenerator(43L, Instant.now()).generate(1).get(0);
+		assertEquals(expected.getUserId(), reseeded.getUser("internalUser0").getUserId());
+	}
+
+	@Test
+	public void regeneratesUsersWhenSnapshotIsTruncated() throws IOException {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		Path snapshot = directory.resolve("users.snapshot");
+		InternalTestHelper.setInternalUserSnapshot(snapshot);
+		InternalTestHelper.setInternalUserSeed(42L);
+		InternalTestHelper.setInternalUserNumber(200);
+		new TourGuideService(gpsUtil, rewardsService, executorService);
+
+		byte[] written = Files.readAllBytes(snapshot);
+		Files.write(snapshot, Arrays.copyOf(written, written.length / 2));
+		TourGuideService fromTruncated = new TourGuideService(gpsUtil, rewardsService, executorService);
+		assertEquals(200, fromTruncated.getUserRepository().size());
+		assertEquals(written.length, Files.size(snapshot));
+
+		Files.write(snapshot, Arrays.copyOf(written, 6));
+		TourGuideService fromTornHeader = new TourGuideService(gpsUtil, rewardsService, executorService);
+		executorService.shutdown();
+		assertEquals(200, fromTornHeader.getUserRepository().size());
+		assertEquals(200, UserSnapshot.readHeader(snapshot).userCount());
+	}
+}
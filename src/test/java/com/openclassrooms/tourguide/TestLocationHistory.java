@@ -0,0 +1,108 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.LocationHistory;
+import com.openclassrooms.tourguide.user.LocationRetention;
+
+public class TestLocationHistory {
+
+	private final UUID userId = UUID.randomUUID();
+
+	private VisitedLocation visit(double latitude, long time) {
+		return new VisitedLocation(userId, new Location(latitude, latitude + 100), new Date(time));
+	}
+
+	@Test
+	public void keepsEntriesInOrderAndReturnsLatest() {
+		LocationHistory history = new LocationHistory(userId);
+		assertThrows(NoSuchElementException.class, history::getLast);
+
+		for (int i = 0; i < 10; i++) {
+			history.add(visit(i, 1000L + i));
+		}
+
+		List<VisitedLocation> locations = history.toList();
+		assertEquals(10, locations.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i, locations.get(i).location.latitude);
+			assertEquals(i + 100, locations.get(i).location.longitude);
+			assertEquals(1000L + i, locations.get(i).timeVisited.getTime());
+			assertEquals(userId, locations.get(i).userId);
+		}
+		assertEquals(9, history.getLast().location.latitude);
+	}
+
+	@Test
+	public void evictsOldestEntriesBeyondMaxEntries() {
+		LocationHistory history = new LocationHistory(userId, new LocationRetention(5, null));
+
+		for (int i = 0; i < 12; i++) {
+			history.add(visit(i, i));
+		}
+
+		assertEquals(5, history.size());
+		assertEquals(12, history.endSequence());
+		assertEquals(7, history.toList().get(0).location.latitude);
+		assertEquals(11, history.getLast().location.latitude);
+	}
+
+	@Test
+	public void evictsEntriesOlderThanMaxAge() {
+		LocationHistory history = new LocationHistory(userId, new LocationRetention(100, Duration.ofMillis(10)));
+
+		history.add(visit(0, 0));
+		history.add(visit(1, 5));
+		history.add(visit(2, 12));
+
+		assertEquals(2, history.size());
+		assertEquals(1, history.toList().get(0).location.latitude);
+	}
+
+	@Test
+	public void sinceResumesFromSequenceNumber() {
+		LocationHistory history = new LocationHistory(userId, new LocationRetention(3, null));
+		for (int i = 0; i < 5; i++) {
+			history.add(visit(i, i));
+		}
+
+		LocationHistory.Slice slice = history.since(4);
+		assertEquals(1, slice.locations().size());
+		assertEquals(5, slice.endSequence());
+
+		// evicted sequence numbers start at the oldest retained entry
+		assertEquals(3, history.since(0).locations().size());
+
+		history.clear();
+		history.add(visit(9, 9));
+		slice = history.since(5);
+		assertEquals(1, slice.locations().size());
+		assertTrue(slice.endSequence() == 1);
+	}
+
+	@Test
+	public void retentionIsKeptPerHistory() {
+		LocationHistory small = new LocationHistory(userId, new LocationRetention(2, null));
+		LocationHistory defaults = new LocationHistory(userId);
+		for (int i = 0; i < 5; i++) {
+			small.add(visit(i, i));
+			defaults.add(visit(i, i));
+		}
+
+		assertEquals(2, small.size());
+		assertEquals(5, defaults.size());
+		assertEquals(LocationRetention.DEFAULT, defaults.getRetention());
+	}
+}
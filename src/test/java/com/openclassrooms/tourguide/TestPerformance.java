@@ -1,11 +1,15 @@
 package com.openclassrooms.tourguide;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 import org.apache.commons.lang3.time.StopWatch;
@@ -14,6 +18,7 @@ import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
 import com.openclassrooms.tourguide.service.RewardsService;
 import com.openclassrooms.tourguide.service.TourGuideService;
@@ -109,4 +114,54 @@ public class TestPerformance {
 
 
 
+	/*
+	 * Contention check for calculateRewards: a batch of users is processed on a multi-threaded
+	 * executor, every user submitted twice, against a RewardCentral that takes 5 ms per lookup.
+	 * Rewards are only serialized per user, so lookups for different users must overlap instead of
+	 * queuing behind a global lock, and no user may get the same reward twice. How the elapsed time
+	 * scales with the thread count is measured by the JMH benchmarks, not asserted here.
+	 */
+	@Test
+	public void calculateRewardsRunsConcurrentlyAcrossUsers() {
+		GpsUtil gpsUtil = new GpsUtil();
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		RewardCentral slowRewardCentral = new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					inFlight.decrementAndGet();
+				}
+				return 1;
+			}
+		};
+		RewardPointsCache uncached = new RewardPointsCache(slowRewardCentral, false, 0, Duration.ZERO);
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		RewardsService rewardsService = new RewardsService(gpsUtil, uncached, executorService);
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			User user = new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com");
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+			users.add(user);
+		}
+
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (User user : users) {
+			futures.add(CompletableFuture.runAsync(() -> rewardsService.calculateRewards(user), executorService));
+			futures.add(CompletableFuture.runAsync(() -> rewardsService.calculateRewards(user), executorService));
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		executorService.shutdown();
+
+		users.forEach(u -> assertEquals(1, u.getUserRewards().size()));
+		assertTrue(maxInFlight.get() > 1, "reward lookups never overlapped");
+	}
+
 }
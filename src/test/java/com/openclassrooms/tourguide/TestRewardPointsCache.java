@@ -0,0 +1,118 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+
+public class TestRewardPointsCache {
+
+	/** RewardCentral stand-in that counts lookups and answers after a short delay. */
+	private static class CountingRewardCentral extends RewardCentral {
+		private final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+			calls.incrementAndGet();
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 42;
+		}
+	}
+
+	@Test
+	public void repeatedLookupsAreServedFromCache() {
+		CountingRewardCentral rewardCentral = new CountingRewardCentral();
+		RewardPointsCache cache = new RewardPointsCache(rewardCentral);
+		UUID attractionId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(42, cache.getRewardPoints(attractionId, userId));
+		}
+
+		assertEquals(1, rewardCentral.calls.get());
+		assertEquals(1, cache.stats().missCount());
+		assertEquals(4, cache.stats().hitCount());
+	}
+
+	@Test
+	public void concurrentMissesTriggerSingleLookup() {
+		CountingRewardCentral rewardCentral = new CountingRewardCentral();
+		RewardPointsCache cache = new RewardPointsCache(rewardCentral);
+		UUID attractionId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+		ExecutorService executorService = Executors.newFixedThreadPool(20);
+
+		List<CompletableFuture<Integer>> futures = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			futures.add(CompletableFuture.supplyAsync(() -> cache.getRewardPoints(attractionId, userId), executorService));
+		}
+		futures.forEach(f -> assertEquals(42, f.join()));
+		executorService.shutdown();
+
+		assertEquals(1, rewardCentral.calls.get());
+	}
+
+	@Test
+	public void disabledCacheAlwaysCallsRewardCentral() {
+		CountingRewardCentral rewardCentral = new CountingRewardCentral();
+		RewardPointsCache cache = new RewardPointsCache(rewardCentral, false, 10, Duration.ofMinutes(1));
+		UUID attractionId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+
+		cache.getRewardPoints(attractionId, userId);
+		cache.getRewardPoints(attractionId, userId);
+
+		assertEquals(2, rewardCentral.calls.get());
+		assertEquals(0, cache.stats().requestCount());
+	}
+
+	@Test
+	public void expiredEntriesAreReloaded() throws InterruptedException {
+		CountingRewardCentral rewardCentral = new CountingRewardCentral();
+		RewardPointsCache cache = new RewardPointsCache(rewardCentral, true, 10, Duration.ofMillis(50));
+		UUID attractionId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+
+		cache.getRewardPoints(attractionId, userId);
+		Thread.sleep(100);
+		cache.getRewardPoints(attractionId, userId);
+
+		assertEquals(2, rewardCentral.calls.get());
+	}
+
+	@Test
+	public void cacheIsBounded() {
+		RewardPointsCache cache = new RewardPointsCache(new CountingRewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				return 1;
+			}
+		}, true, 100, Duration.ofMinutes(1));
+
+		for (int i = 0; i < 1000; i++) {
+			cache.getRewardPoints(UUID.randomUUID(), UUID.randomUUID());
+		}
+		cache.cleanUp();
+
+		assertTrue(cache.estimatedSize() <= 100);
+		assertTrue(cache.stats().evictionCount() > 0);
+	}
+
+}
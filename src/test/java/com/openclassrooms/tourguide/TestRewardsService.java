@@ -1,14 +1,18 @@
 package com.openclassrooms.tourguide;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
 import java.util.Date;
 import java.util.List;
 import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import com.openclassrooms.tourguide.tracker.Tracker;
 import lombok.extern.slf4j.Slf4j;
@@ -17,9 +21,13 @@ import org.junit.jupiter.api.Test;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import rewardCentral.RewardCentral;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+import com.openclassrooms.tourguide.service.RewardEngine;
 import com.openclassrooms.tourguide.service.RewardsService;
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
@@ -47,6 +55,210 @@ public class TestRewardsService {
 		assertTrue(userRewards.size() == 1);
 	}
 
+	@Test
+	public void calculateRewardsIfMovedSkipsStationaryUsers() {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		GpsUtil gpsUtil = new GpsUtil();
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		rewardsService.setMetrics(new TourGuideMetrics(registry));
+		rewardsService.setMovementThreshold(0.5);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Attraction attraction = rewardsService.getAttractionIndex().getAttractions().get(0);
+		VisitedLocation first = new VisitedLocation(user.getUserId(), new Location(attraction.latitude, attraction.longitude + 1), new Date());
+		user.addToVisitedLocations(first);
+		assertTrue(rewardsService.calculateRewardsIfMoved(user, first));
+
+		VisitedLocation stationary = new VisitedLocation(user.getUserId(), new Location(attraction.latitude, attraction.longitude + 1.001), new Date());
+		user.addToVisitedLocations(stationary);
+		assertFalse(rewardsService.calculateRewardsIfMoved(user, stationary));
+
+		VisitedLocation atAttraction = new VisitedLocation(user.getUserId(), attraction, new Date());
+		user.addToVisitedLocations(atAttraction);
+		assertTrue(rewardsService.calculateRewardsIfMoved(user, atAttraction));
+		assertTrue(user.hasRewardFor(attraction));
+
+		rewardsService.refreshAttractions();
+		VisitedLocation afterRefresh = new VisitedLocation(user.getUserId(), attraction, new Date());
+		user.addToVisitedLocations(afterRefresh);
+		assertTrue(rewardsService.calculateRewardsIfMoved(user, afterRefresh));
+		executorService.shutdown();
+
+		assertEquals(3, registry.get("tourguide.rewards.movement").tag("outcome", "evaluated").counter().count());
+		assertEquals(1, registry.get("tourguide.rewards.movement").tag("outcome", "skipped").counter().count());
+	}
+
+	@Test
+	public void smallStepsAddingUpPastTheMovementThresholdAreEvaluated() {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		GpsUtil gpsUtil = new GpsUtil();
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		rewardsService.setMetrics(new TourGuideMetrics(registry));
+		rewardsService.setMovementThreshold(0.5);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Attraction attraction = rewardsService.getAttractionIndex().getAttractions().get(0);
+		// walk towards the attraction from about 29 miles away, in steps of about 0.3 miles
+		for (int step = 100; step >= 0; step--) {
+			Location location = new Location(attraction.latitude, attraction.longitude + step * 0.005);
+			VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), location, new Date());
+			user.addToVisitedLocations(visitedLocation);
+			rewardsService.calculateRewardsIfMoved(user, visitedLocation);
+		}
+		executorService.shutdown();
+
+		assertTrue(user.hasRewardFor(attraction));
+		assertTrue(registry.get("tourguide.rewards.movement").tag("outcome", "skipped").counter().count() > 0);
+		assertTrue(registry.get("tourguide.rewards.movement").tag("outcome", "evaluated").counter().count() > 1);
+	}
+
+	@Test
+	public void rewardEngineCoalescesQueuedUpdates() throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		CountDownLatch released = new CountDownLatch(1);
+		RewardCentral blockingRewardCentral = new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				try {
+					released.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return 10;
+			}
+		};
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		TourGuideMetrics metrics = new TourGuideMetrics(registry);
+		RewardsService rewardsService = new RewardsService(new GpsUtil(), blockingRewardCentral, executorService);
+		List<Attraction> attractions = rewardsService.getAttractionIndex().getAttractions();
+
+		try (RewardEngine rewardEngine = new RewardEngine(rewardsService, 1, 10, metrics)) {
+			User busy = new User(UUID.randomUUID(), "busy", "000", "busy@tourGuide.com");
+			VisitedLocation busyLocation = new VisitedLocation(busy.getUserId(), attractions.get(0), new Date());
+			busy.addToVisitedLocations(busyLocation);
+			rewardEngine.publish(busy, busyLocation);
+
+			User jon = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+			VisitedLocation first = new VisitedLocation(jon.getUserId(), attractions.get(1), new Date());
+			VisitedLocation second = new VisitedLocation(jon.getUserId(), attractions.get(2), new Date());
+			jon.addToVisitedLocations(first);
+			jon.addToVisitedLocations(second);
+			// the single worker is blocked on the first user, so both updates of jon are queued together
+			Thread.sleep(100);
+			rewardEngine.publish(jon, first);
+			rewardEngine.publish(jon, second);
+			assertFalse(rewardEngine.awaitIdle(Duration.ofMillis(50)));
+
+			released.countDown();
+			assertTrue(rewardEngine.awaitIdle(Duration.ofSeconds(5)));
+			assertEquals(1, busy.getUserRewards().size());
+			assertEquals(2, jon.getUserRewards().size());
+		}
+		executorService.shutdown();
+
+		assertEquals(1, registry.get("tourguide.rewards.queue.coalesced").counter().count());
+		assertEquals(2, registry.get("tourguide.rewards.queue.lag").timer().count());
+		assertEquals(0, registry.get("tourguide.rewards.queue.depth").gauge().value());
+	}
+
+	@Test
+	public void trackUserLocationWaitsForTheRewardEngine() {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		Attraction attraction = rewardsService.getAttractionIndex().getAttractions().get(0);
+		GpsUtil atAttraction = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				return new VisitedLocation(userId, attraction, new Date());
+			}
+		};
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(atAttraction, rewardsService, executorService);
+
+		try (RewardEngine rewardEngine = new RewardEngine(rewardsService, 1, 10, TourGuideMetrics.standalone())) {
+			tourGuideService.setRewardEngine(rewardEngine);
+			User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+			tourGuideService.trackUserLocation(user);
+
+			assertTrue(user.hasRewardFor(attraction));
+		}
+		executorService.shutdown();
+	}
+
+	@Test
+	public void calculateRewardsOnlyEvaluatesNewLocations() {
+		ExecutorService executorService = Executors.newFixedThreadPool(100);
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(),executorService);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		List<Attraction> attractions = rewardsService.getAttractionIndex().getAttractions();
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attractions.get(0), new Date()));
+		rewardsService.calculateRewards(user);
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(1, user.getRewardsWatermark(rewardsService.getEvaluationEpoch()));
+
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attractions.get(1), new Date()));
+		rewardsService.calculateRewards(user);
+		assertEquals(2, user.getUserRewards().size());
+		assertEquals(2, user.getRewardsWatermark(rewardsService.getEvaluationEpoch()));
+	}
+
+	@Test
+	public void recalculateRewardsRescansWholeHistory() {
+		ExecutorService executorService = Executors.newFixedThreadPool(100);
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(),executorService);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Attraction attraction = rewardsService.getAttractionIndex().getAttractions().get(0);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+		user.setRewardsWatermark(1, rewardsService.getEvaluationEpoch(), attraction);
+
+		rewardsService.calculateRewards(user);
+		assertEquals(0, user.getUserRewards().size());
+
+		rewardsService.recalculateRewards(user);
+		assertEquals(1, user.getUserRewards().size());
+	}
+
+	@Test
+	public void proximityBufferChangeInvalidatesWatermark() {
+		ExecutorService executorService = Executors.newFixedThreadPool(100);
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(),executorService);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(0, 0), new Date()));
+		rewardsService.calculateRewards(user);
+		assertEquals(0, user.getUserRewards().size());
+
+		rewardsService.setProximityBuffer(Integer.MAX_VALUE);
+		rewardsService.calculateRewards(user);
+		assertEquals(rewardsService.getAttractionIndex().size(), user.getUserRewards().size());
+	}
+
+	@Test
+	public void addUserRewardKeepsOneRewardPerAttraction() throws InterruptedException {
+		GpsUtil gpsUtil = new GpsUtil();
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), attractions.get(0), new Date());
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+		for (int i = 0; i < 8; i++) {
+			executorService.execute(() -> attractions.forEach(a -> user.addUserReward(new UserReward(visitedLocation, a, 1))));
+		}
+		executorService.shutdown();
+		executorService.awaitTermination(10, TimeUnit.SECONDS);
+
+		assertEquals(attractions.size(), user.getUserRewards().size());
+		assertTrue(attractions.stream().allMatch(user::hasRewardFor));
+	}
+
 	@Test
 	public void isWithinAttractionProximity() {
 		ExecutorService executorService = Executors.newFixedThreadPool(100);
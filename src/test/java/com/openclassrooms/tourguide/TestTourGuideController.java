@@ -0,0 +1,198 @@
+package com.openclassrooms.tourguide;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestTourGuideController {
+
+	private static GpsUtil gpsUtilAnsweringAfter(long millis) {
+		return new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				try {
+					Thread.sleep(millis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return new VisitedLocation(userId, new Location(12, 34), new Date());
+			}
+		};
+	}
+
+	private static TourGuideController controller(GpsUtil gpsUtil, ExecutorService executorService) {
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, executorService);
+		tourGuideService.addUser(new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com"));
+		tourGuideService.addUser(new User(UUID.randomUUID(), "jane", "000", "jane@tourGuide.com"));
+		return new TourGuideController(tourGuideService);
+	}
+
+	@Test
+	public void getLocationIsServedAsynchronously() throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller(gpsUtilAnsweringAfter(10), executorService)).build();
+
+		MvcResult result = mockMvc.perform(get("/getLocation").param("userName", "jon"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.location.latitude").value(12.0))
+				.andExpect(jsonPath("$.location.longitude").value(34.0));
+		executorService.shutdown();
+	}
+
+	@Test
+	public void slowGetLocationAnswersGatewayTimeout() throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		TourGuideController controller = controller(gpsUtilAnsweringAfter(2000), executorService);
+		controller.setGetLocationTimeout(Duration.ofMillis(100));
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+		MvcResult result = mockMvc.perform(get("/getLocation").param("userName", "jon"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isGatewayTimeout());
+		controller.shutdown();
+		executorService.shutdown();
+	}
+
+	@Test
+	public void timedOutRequestIsInterrupted() throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		GpsUtil blocking = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				try {
+					new CountDownLatch(1).await();
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+				throw new IllegalStateException("interrupted");
+			}
+		};
+		TourGuideController controller = controller(blocking, executorService);
+		controller.setGetLocationTimeout(Duration.ofMillis(100));
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+		MvcResult result = mockMvc.perform(get("/getLocation").param("userName", "jon"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isGatewayTimeout());
+
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		controller.shutdown();
+		executorService.shutdown();
+	}
+
+	@Test
+	public void unknownUserAnswersNotFound() throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		TourGuideController controller = controller(gpsUtilAnsweringAfter(0), executorService);
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+		mockMvc.perform(get("/getLocation").param("userName", "unknown"))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(get("/getRewards").param("userName", "unknown"))
+				.andExpect(status().isNotFound());
+		controller.shutdown();
+		executorService.shutdown();
+	}
+
+	@Test
+	public void bulkGetLocationAnswersKnownUsersByName() throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		TourGuideController controller = controller(gpsUtilAnsweringAfter(10), executorService);
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+		MvcResult result = mockMvc.perform(post("/bulk/getLocation")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[\"jon\", \"jane\", \"unknown\"]"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$.jon.location.latitude").value(12.0))
+				.andExpect(jsonPath("$.jane.location.longitude").value(34.0));
+		controller.shutdown();
+		executorService.shutdown();
+	}
+
+	@Test
+	public void bulkRequestOverTheLimitIsRejected() throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		TourGuideController controller = controller(gpsUtilAnsweringAfter(10), executorService);
+		controller.setBulkMaxUsers(1);
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+		mockMvc.perform(post("/bulk/getRewards")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[\"jon\", \"jane\"]"))
+				.andExpect(status().isBadRequest());
+		controller.shutdown();
+		executorService.shutdown();
+	}
+
+	@Test
+	public void streamLocationsWritesOneLinePerLocatedUser() throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		GpsUtil gpsUtil = gpsUtilAnsweringAfter(0);
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, executorService);
+		User located = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		located.addToVisitedLocations(new VisitedLocation(located.getUserId(), new Location(1, 2), new Date()));
+		tourGuideService.addUser(located);
+		tourGuideService.addUser(new User(UUID.randomUUID(), "jane", "000", "jane@tourGuide.com"));
+		TourGuideController controller = new TourGuideController(tourGuideService);
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+		MvcResult result = mockMvc.perform(get("/stream/locations"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String body = mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		String[] lines = body.split("\n");
+		assertEquals(1, lines.length);
+		assertTrue(lines[0].contains("\"userName\":\"jon\""));
+		assertTrue(lines[0].contains("\"latitude\":1.0"));
+		controller.shutdown();
+		executorService.shutdown();
+	}
+}
@@ -1,25 +1,41 @@
 package com.openclassrooms.tourguide;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.openclassrooms.tourguide.attraction.NearbyAttraction;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.Mock;
 import rewardCentral.RewardCentral;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
 import com.openclassrooms.tourguide.service.RewardsService;
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
@@ -106,6 +122,171 @@ public class TestTourGuideService {
 
 
 
+	@Test
+	public void concurrentGetUserLocationSharesOneLookup() {
+		ExecutorService executorService = Executors.newFixedThreadPool(20);
+		AtomicInteger gpsCalls = new AtomicInteger();
+		GpsUtil slowGpsUtil = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				gpsCalls.incrementAndGet();
+				try {
+					Thread.sleep(200);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return new VisitedLocation(userId, new Location(0, 0), new Date());
+			}
+		};
+		RewardsService rewardsService = new RewardsService(slowGpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(slowGpsUtil, rewardsService, executorService);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		List<CompletableFuture<VisitedLocation>> futures = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			futures.add(CompletableFuture.supplyAsync(() -> tourGuideService.getUserLocation(user), executorService));
+		}
+		futures.forEach(f -> assertEquals(user.getUserId(), f.join().userId));
+		executorService.shutdown();
+
+		assertEquals(1, gpsCalls.get());
+		assertEquals(1, user.getVisitedLocations().size());
+	}
+
+	@Test
+	public void bulkGetUserLocationsSharesLookupsInFlight() throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		AtomicInteger gpsCalls = new AtomicInteger();
+		CountDownLatch lookupStarted = new CountDownLatch(1);
+		CountDownLatch released = new CountDownLatch(1);
+		GpsUtil blockingGpsUtil = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				gpsCalls.incrementAndGet();
+				lookupStarted.countDown();
+				try {
+					released.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return new VisitedLocation(userId, new Location(0, 0), new Date());
+			}
+		};
+		RewardsService rewardsService = new RewardsService(blockingGpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(blockingGpsUtil, rewardsService, executorService);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		CompletableFuture<VisitedLocation> single = CompletableFuture.supplyAsync(() -> tourGuideService.getUserLocation(user), executorService);
+		assertTrue(lookupStarted.await(5, TimeUnit.SECONDS));
+		CompletableFuture<Map<UUID, VisitedLocation>> bulk = CompletableFuture.supplyAsync(
+				() -> tourGuideService.getUserLocations(List.of(user)), executorService);
+		// the batch waits on the lookup in flight instead of sending its own
+		assertThrows(TimeoutException.class, () -> bulk.get(200, TimeUnit.MILLISECONDS));
+		assertEquals(1, gpsCalls.get());
+		released.countDown();
+
+		assertEquals(single.join(), bulk.join().get(user.getUserId()));
+		executorService.shutdown();
+		assertEquals(1, gpsCalls.get());
+		assertEquals(1, user.getVisitedLocations().size());
+	}
+
+	@Test
+	public void getUserLocationTracksAgainOnceLocationIsStale() {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, executorService);
+		tourGuideService.setLocationMaxAge(Duration.ofMinutes(5));
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		VisitedLocation stale = new VisitedLocation(user.getUserId(), new Location(0, 0),
+				new Date(System.currentTimeMillis() - Duration.ofHours(1).toMillis()));
+		user.addToVisitedLocations(stale);
+
+		VisitedLocation tracked = tourGuideService.getUserLocation(user);
+		VisitedLocation served = tourGuideService.getUserLocation(user);
+		executorService.shutdown();
+
+		assertTrue(tracked.timeVisited.after(stale.timeVisited));
+		assertEquals(tracked.timeVisited, served.timeVisited);
+		assertEquals(2, user.getVisitedLocations().size());
+	}
+
+	@Test
+	public void trackAllUserLocationsBoundsUsersInFlight() {
+		ExecutorService executorService = Executors.newFixedThreadPool(100);
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		GpsUtil slowGpsUtil = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				inFlight.decrementAndGet();
+				return new VisitedLocation(userId, new Location(0, 0), new Date());
+			}
+		};
+		RewardsService rewardsService = new RewardsService(slowGpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(500);
+		TourGuideService tourGuideService = new TourGuideService(slowGpsUtil, rewardsService, executorService);
+		tourGuideService.setTrackingMaxInFlight(20);
+
+		List<User> allUsers = tourGuideService.getAllUsers();
+		tourGuideService.trackAllUserLocations(allUsers);
+		executorService.shutdown();
+
+		assertTrue(maxInFlight.get() <= 20);
+		allUsers.forEach(u -> assertEquals(4, u.getVisitedLocations().size()));
+	}
+
+	@Test
+	public void trackAllUserLocationsRecordsMetrics() {
+		ExecutorService executorService = Executors.newFixedThreadPool(100);
+		GpsUtil gpsUtil = new GpsUtil();
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		TourGuideMetrics metrics = new TourGuideMetrics(registry);
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		rewardsService.setMetrics(metrics);
+		InternalTestHelper.setInternalUserNumber(10);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, executorService);
+		tourGuideService.setMetrics(metrics);
+
+		tourGuideService.trackAllUserLocations(tourGuideService.getAllUsers());
+		executorService.shutdown();
+
+		assertEquals(1, registry.get("tourguide.tracker.cycle").timer().count());
+		assertEquals(10, registry.get("tourguide.tracker.users").counter().count());
+		assertEquals(0, registry.get("tourguide.tracker.failures").counter().count());
+		assertEquals(10, registry.get("tourguide.gpsutil.location").timer().count());
+		assertEquals(10, registry.get("tourguide.rewards.calculation").timer().count());
+	}
+
+	@Test
+	public void trackAllUserLocationsCountsUsersTheExecutorRejectsAsFailed() {
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		GpsUtil gpsUtil = new GpsUtil();
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(10);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, executorService);
+		tourGuideService.setMetrics(new TourGuideMetrics(registry));
+		tourGuideService.setTrackingMaxInFlight(2);
+		executorService.shutdown();
+
+		tourGuideService.trackAllUserLocations(tourGuideService.getAllUsers());
+
+		assertEquals(1, registry.get("tourguide.tracker.cycle").timer().count());
+		assertEquals(0, registry.get("tourguide.tracker.users").counter().count());
+		assertEquals(10, registry.get("tourguide.tracker.failures").counter().count());
+	}
+
 	@Test
 	public void getNearbyAttractions()  {
 		ExecutorService executorService = Executors.newFixedThreadPool(100);
@@ -117,10 +298,51 @@ public class TestTourGuideService {
 		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
 		VisitedLocation visitedLocation = tourGuideService.trackUserLocation(user);
 
-		List<ObjectNode> attractions = tourGuideService.getNearByAttractions(user,visitedLocation);
+		List<NearbyAttraction> attractions = tourGuideService.getNearByAttractions(user,visitedLocation);
 
 		assertEquals(5, attractions.size());
 	}
 
+	@Test
+	public void nearbyAttractionsAreWrittenWithTheirAttractionFields() throws JsonProcessingException {
+		ObjectMapper objectMapper = new ObjectMapper();
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+		List<NearbyAttraction> attractions = List.of(
+				new NearbyAttraction(attraction, 33.0, -117.0, 12.5, 300),
+				new NearbyAttraction(attraction, 34.0, -118.0, 6.25, 200));
+
+		JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(attractions));
+
+		assertEquals(2, json.size());
+		for (JsonNode node : json) {
+			List<String> fields = new ArrayList<>();
+			node.fieldNames().forEachRemaining(fields::add);
+			assertEquals(List.of("name", "attractionLatitude", "attractionLongitude",
+					"userLatitude", "userLongitude", "distance", "rewardPoints"), fields);
+			assertEquals("Disneyland", node.get("name").asText());
+			assertEquals(33.817595, node.get("attractionLatitude").asDouble());
+			assertEquals(-117.922008, node.get("attractionLongitude").asDouble());
+		}
+		assertEquals(34.0, json.get(1).get("userLatitude").asDouble());
+		assertEquals(6.25, json.get(1).get("distance").asDouble());
+		assertEquals(200, json.get(1).get("rewardPoints").asInt());
+	}
 
+	@Test
+	public void nearbyAttractionsFollowTheMapperIndentationAndTheCurrentCatalog() throws JsonProcessingException {
+		ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+		Attraction refreshed = new Attraction("Disneyland Park", "Anaheim", "CA", 33.8, -117.9);
+
+		String written = objectMapper.writeValueAsString(List.of(
+				new NearbyAttraction(attraction, 33.0, -117.0, 12.5, 300),
+				new NearbyAttraction(refreshed, 33.0, -117.0, 12.5, 300)));
+		JsonNode json = objectMapper.readTree(written);
+
+		// laid out exactly as the mapper lays out the same tree
+		assertEquals(objectMapper.writeValueAsString(json), written);
+		assertEquals("Disneyland", json.get(0).get("name").asText());
+		assertEquals("Disneyland Park", json.get(1).get("name").asText());
+		assertEquals(33.8, json.get(1).get("attractionLatitude").asDouble());
+	}
 }
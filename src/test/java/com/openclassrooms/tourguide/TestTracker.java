@@ -0,0 +1,356 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.metrics.TourGuideMetrics;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.tracker.Tracker;
+import com.openclassrooms.tourguide.tracker.TrackingWheel;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestTracker {
+
+	private static class CountingGpsUtil extends GpsUtil {
+		private final AtomicInteger calls = new AtomicInteger();
+		private final MockClock clock;
+		private final Duration latency;
+
+		CountingGpsUtil() {
+			this(null, Duration.ZERO);
+		}
+
+		/** Advances the clock by the latency on every call instead of sleeping. */
+		CountingGpsUtil(MockClock clock, Duration latency) {
+			this.clock = clock;
+			this.latency = latency;
+		}
+
+		@Override
+		public VisitedLocation getUserLocation(UUID userId) {
+			calls.incrementAndGet();
+			if (clock != null) {
+				clock.add(latency);
+			}
+			return new VisitedLocation(userId, new Location(0, 0), new Date());
+		}
+	}
+
+	/** Records the users of every tracking step, and counts them down. */
+	private static TourGuideService recordingService(GpsUtil gpsUtil, RewardsService rewardsService,
+			ExecutorService executorService, List<List<User>> steps, CountDownLatch usersLeft) {
+		return new TourGuideService(gpsUtil, rewardsService, executorService) {
+			@Override
+			public void trackUserLocations(Collection<User> users) {
+				super.trackUserLocations(users);
+				steps.add(List.copyOf(users));
+				users.forEach(user -> usersLeft.countDown());
+			}
+		};
+	}
+
+	@Test
+	public void wheelSpreadsUsersEvenlyAndKeepsTheirSlot() {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			users.add(new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"));
+		}
+		TrackingWheel wheel = new TrackingWheel(10);
+		wheel.rebuild(users);
+
+		int total = 0;
+		for (int slot = 0; slot < 10; slot++) {
+			int size = wheel.slot(slot).size();
+			assertTrue(size > 800 && size < 1200, "slot " + slot + " holds " + size + " users");
+			for (User user : wheel.slot(slot)) {
+				assertEquals(slot, TrackingWheel.slotOf(user.getUserId(), 10));
+			}
+			total += size;
+		}
+		assertEquals(10_000, total);
+	}
+
+	@Test
+	public void spreadScheduleTracksEveryUserOncePerInterval() throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		CountingGpsUtil gpsUtil = new CountingGpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(100);
+		List<List<User>> steps = new CopyOnWriteArrayList<>();
+		CountDownLatch revolution = new CountDownLatch(100);
+		TourGuideService tourGuideService = recordingService(gpsUtil, rewardsService, executorService, steps, revolution);
+		Tracker tracker = new Tracker(tourGuideService);
+		tracker.setSchedule(Tracker.Schedule.SPREAD);
+		tracker.setTrackingPollingInterval(Duration.ofMillis(100));
+		tracker.setWheelSlots(10);
+
+		tracker.startTracking();
+		assertTrue(revolution.await(10, TimeUnit.SECONDS));
+		tracker.stopTracking();
+		executorService.shutdown();
+
+		// every tick of the first revolution tracks the users of one slot, in slot order
+		Set<UUID> tracked = new HashSet<>();
+		int previousSlot = -1;
+		for (List<User> step : steps) {
+			if (tracked.size() == 100) {
+				break;
+			}
+			int slot = TrackingWheel.slotOf(step.get(0).getUserId(), 10);
+			assertTrue(slot > previousSlot);
+			for (User user : step) {
+				assertEquals(slot, TrackingWheel.slotOf(user.getUserId(), 10));
+				assertTrue(tracked.add(user.getUserId()));
+			}
+			previousSlot = slot;
+		}
+		assertEquals(100, tracked.size());
+	}
+
+	@Test
+	public void rateLimitDefersUsersToLaterTicks() throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		CountingGpsUtil gpsUtil = new CountingGpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(100);
+		List<List<User>> steps = new CopyOnWriteArrayList<>();
+		CountDownLatch twentyTicks = new CountDownLatch(20);
+		TourGuideService tourGuideService = recordingService(gpsUtil, rewardsService, executorService, steps, twentyTicks);
+		Tracker tracker = new Tracker(tourGuideService);
+		tracker.setTrackingPollingInterval(Duration.ofMillis(100));
+		tracker.setWheelSlots(10);
+		// 50 users per second over 10 ms ticks: a budget of 1 user per tick
+		tracker.setMaxRate(50);
+
+		tracker.startTracking();
+		assertTrue(twentyTicks.await(10, TimeUnit.SECONDS));
+		tracker.stopTracking();
+		executorService.shutdown();
+
+		steps.forEach(step -> assertEquals(1, step.size()));
+	}
+
+	/** Records the users of every tracking cycle, and counts the cycles down. */
+	private static TourGuideMetrics cycleRecordingMetrics(SimpleMeterRegistry registry, List<Integer> cycleUsers,
+			CountDownLatch cycles) {
+		return new TourGuideMetrics(registry) {
+			@Override
+			public void recordTrackerCycleTime(int users, long elapsedNanos) {
+				super.recordTrackerCycleTime(users, elapsedNanos);
+				cycleUsers.add(users);
+				cycles.countDown();
+			}
+		};
+	}
+
+	@Test
+	public void rateLimitBelowOneUserPerTickIsCarriedOver() throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		CountingGpsUtil gpsUtil = new CountingGpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(100);
+		List<Integer> revolutionUsers = new CopyOnWriteArrayList<>();
+		CountDownLatch twoRevolutions = new CountDownLatch(2);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, executorService);
+		Tracker tracker = new Tracker(tourGuideService);
+		tracker.setMetrics(cycleRecordingMetrics(new SimpleMeterRegistry(), revolutionUsers, twoRevolutions));
+		tracker.setTrackingPollingInterval(Duration.ofMillis(100));
+		tracker.setWheelSlots(10);
+		// 25 users per second over 10 ms ticks: a quarter of a user per tick
+		tracker.setMaxRate(25);
+
+		tracker.startTracking();
+		assertTrue(twoRevolutions.await(10, TimeUnit.SECONDS));
+		tracker.stopTracking();
+		executorService.shutdown();
+
+		// 10 ticks allow 2.5 users, so the first two revolutions track 2 and 3 users
+		assertEquals(List.of(2, 3), revolutionUsers.subList(0, 2));
+	}
+
+	@Test
+	public void rateLimitedRevolutionsQueueEachWaitingUserOnceAndRecordTheirCycle() throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		CountingGpsUtil gpsUtil = new CountingGpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(100);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		List<Integer> revolutionUsers = new CopyOnWriteArrayList<>();
+		List<Double> deferredAtRevolutions = new CopyOnWriteArrayList<>();
+		CountDownLatch fourRevolutions = new CountDownLatch(4);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, executorService);
+		Tracker tracker = new Tracker(tourGuideService);
+		tracker.setMetrics(new TourGuideMetrics(registry) {
+			@Override
+			public void recordTrackerCycleTime(int users, long elapsedNanos) {
+				super.recordTrackerCycleTime(users, elapsedNanos);
+				revolutionUsers.add(users);
+				deferredAtRevolutions.add(deferredUsers().count());
+				fourRevolutions.countDown();
+			}
+		});
+		tracker.setTrackingPollingInterval(Duration.ofMillis(100));
+		tracker.setWheelSlots(10);
+		// 500 users per second over 10 ms ticks: 5 users per tick, half of the 100 users per revolution
+		tracker.setMaxRate(500);
+
+		tracker.startTracking();
+		assertTrue(fourRevolutions.await(10, TimeUnit.SECONDS));
+		tracker.stopTracking();
+		executorService.shutdown();
+
+		// the backlog never holds a user twice, so it never exceeds the 100 users
+		revolutionUsers.subList(0, 4).forEach(users -> assertEquals(50, users));
+		for (int i = 1; i < 4; i++) {
+			double deferred = deferredAtRevolutions.get(i) - deferredAtRevolutions.get(i - 1);
+			assertTrue(deferred <= 100, deferred + " users deferred");
+		}
+		assertTrue(registry.get("tourguide.tracker.cycle").timer().count() >= 4);
+	}
+
+	@Test
+	public void shrinkPolicyStopsOverrunningCyclesAndDefersTheRest() throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		MockClock clock = new MockClock();
+		CountingGpsUtil gpsUtil = new CountingGpsUtil(clock, Duration.ofMillis(20));
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(100);
+		List<List<User>> steps = new CopyOnWriteArrayList<>();
+		CountDownLatch tenChunks = new CountDownLatch(100);
+		TourGuideService tourGuideService = recordingService(gpsUtil, rewardsService, executorService, steps, tenChunks);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		Tracker tracker = new Tracker(tourGuideService);
+		tracker.setMetrics(new TourGuideMetrics(registry));
+		tracker.setClock(clock);
+		tracker.setSchedule(Tracker.Schedule.BURST);
+		tracker.setOverrunPolicy(Tracker.OverrunPolicy.SHRINK);
+		tracker.setTrackingPollingInterval(Duration.ofMillis(100));
+		tracker.setPartitions(1);
+		tracker.setChunkSize(10);
+
+		tracker.startTracking();
+		assertTrue(tenChunks.await(10, TimeUnit.SECONDS));
+		tracker.stopTracking();
+		executorService.shutdown();
+
+		// a chunk of 10 users at 20 ms passes the 100 ms deadline, so each cycle tracks one chunk
+		// and the users left over go first in the next one, until every user was tracked once
+		Set<UUID> tracked = new HashSet<>();
+		for (List<User> chunk : steps.subList(0, 10)) {
+			assertEquals(10, chunk.size());
+			chunk.forEach(user -> assertTrue(tracked.add(user.getUserId())));
+		}
+		assertEquals(100, tracked.size());
+		assertTrue(registry.get("tourguide.tracker.overruns").counter().count() >= 9);
+		assertTrue(registry.get("tourguide.tracker.deferred").counter().count() >= 90 + 80);
+	}
+
+	/** Builds a BURST tracker over 100 users whose lookups advance the clock by 20 minutes each. */
+	private static Tracker burstTracker(TourGuideService tourGuideService, MockClock clock, TourGuideMetrics metrics,
+			Tracker.OverrunPolicy overrunPolicy) {
+		Tracker tracker = new Tracker(tourGuideService);
+		tracker.setMetrics(metrics);
+		tracker.setClock(clock);
+		tracker.setSchedule(Tracker.Schedule.BURST);
+		tracker.setOverrunPolicy(overrunPolicy);
+		// a chunk of 10 users takes 200 minutes: past the 1 hour deadline and the 1 hour overrun allowed
+		tracker.setTrackingPollingInterval(Duration.ofHours(1));
+		tracker.setMaxOverrun(Duration.ofHours(1));
+		tracker.setPartitions(1);
+		tracker.setChunkSize(10);
+		return tracker;
+	}
+
+	/** Counts the tracking cycles down once their overrun is recorded. */
+	private static TourGuideMetrics cycleCountingMetrics(SimpleMeterRegistry registry, CountDownLatch cycles) {
+		return new TourGuideMetrics(registry) {
+			@Override
+			public void recordTrackerCycleTime(int users, long elapsedNanos) {
+				super.recordTrackerCycleTime(users, elapsedNanos);
+				cycles.countDown();
+			}
+		};
+	}
+
+	@Test
+	public void catchUpPolicyBoundsTheOverrunAndStartsTheNextCycleAtOnce() throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		MockClock clock = new MockClock();
+		CountingGpsUtil gpsUtil = new CountingGpsUtil(clock, Duration.ofMinutes(20));
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(100);
+		List<List<User>> steps = new CopyOnWriteArrayList<>();
+		TourGuideService tourGuideService = recordingService(gpsUtil, rewardsService, executorService, steps, new CountDownLatch(0));
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		CountDownLatch twoCycles = new CountDownLatch(2);
+		Tracker tracker = burstTracker(tourGuideService, clock, cycleCountingMetrics(registry, twoCycles),
+				Tracker.OverrunPolicy.CATCH_UP);
+
+		tracker.startTracking();
+		// the next cycle of a one hour interval only comes this soon if it starts at once
+		assertTrue(twoCycles.await(10, TimeUnit.SECONDS));
+		tracker.stopTracking();
+		executorService.shutdown();
+
+		// each cycle stops after one chunk, and the users it deferred go first in the next one
+		assertEquals(10, steps.get(0).size());
+		assertEquals(10, steps.get(1).size());
+		steps.get(1).forEach(user -> assertFalse(steps.get(0).contains(user)));
+		assertTrue(registry.get("tourguide.tracker.overruns").counter().count() >= 2);
+		assertTrue(registry.get("tourguide.tracker.deferred").counter().count() >= 2 * 90);
+	}
+
+	@Test
+	public void skipPolicyBoundsTheOverrunAndWaitsForTheNextInterval() throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		MockClock clock = new MockClock();
+		CountingGpsUtil gpsUtil = new CountingGpsUtil(clock, Duration.ofMinutes(20));
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), executorService);
+		InternalTestHelper.setInternalUserNumber(100);
+		List<List<User>> steps = new CopyOnWriteArrayList<>();
+		CountDownLatch secondCycle = new CountDownLatch(11);
+		TourGuideService tourGuideService = recordingService(gpsUtil, rewardsService, executorService, steps, secondCycle);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		CountDownLatch firstCycle = new CountDownLatch(1);
+		Tracker tracker = burstTracker(tourGuideService, clock, cycleCountingMetrics(registry, firstCycle),
+				Tracker.OverrunPolicy.SKIP);
+
+		tracker.startTracking();
+		assertTrue(firstCycle.await(10, TimeUnit.SECONDS));
+		// the next cycle waits for the next interval boundary, 40 minutes away
+		assertFalse(secondCycle.await(200, TimeUnit.MILLISECONDS));
+		tracker.stopTracking();
+		executorService.shutdown();
+
+		// the cycle stops after one chunk instead of running all 100 users, about 33 hours late
+		assertEquals(List.of(10), steps.stream().map(List::size).toList());
+		assertEquals(1, registry.get("tourguide.tracker.overruns").counter().count());
+		assertEquals(90, registry.get("tourguide.tracker.deferred").counter().count());
+	}
+}
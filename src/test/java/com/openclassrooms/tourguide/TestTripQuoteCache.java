@@ -0,0 +1,84 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import tripPricer.Provider;
+import tripPricer.TripPricer;
+import com.openclassrooms.tourguide.cache.TripQuoteCache;
+
+public class TestTripQuoteCache {
+
+	/** TripPricer stand-in that counts calls and answers after a short delay. */
+	private static class CountingTripPricer extends TripPricer {
+		private final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public List<Provider> getPrice(String apiKey, UUID attractionId, int adults, int children, int nightsStay, int rewardsPoints) {
+			calls.incrementAndGet();
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return List.of(new Provider(UUID.randomUUID(), "provider", 100.0 * adults - rewardsPoints));
+		}
+	}
+
+	@Test
+	public void repeatedQuotesAreServedFromCache() {
+		CountingTripPricer tripPricer = new CountingTripPricer();
+		TripQuoteCache cache = new TripQuoteCache(tripPricer);
+		UUID userId = UUID.randomUUID();
+
+		List<Provider> first = cache.getPrice("key", userId, 2, 1, 3, 10);
+		for (int i = 0; i < 4; i++) {
+			assertEquals(first, cache.getPrice("key", userId, 2, 1, 3, 10));
+		}
+
+		assertEquals(1, tripPricer.calls.get());
+		assertEquals(4, cache.stats().hitCount());
+	}
+
+	@Test
+	public void concurrentIdenticalQuotesTriggerSingleCall() {
+		CountingTripPricer tripPricer = new CountingTripPricer();
+		TripQuoteCache cache = new TripQuoteCache(tripPricer);
+		UUID userId = UUID.randomUUID();
+		ExecutorService executorService = Executors.newFixedThreadPool(20);
+
+		List<CompletableFuture<List<Provider>>> futures = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			futures.add(CompletableFuture.supplyAsync(() -> cache.getPrice("key", userId, 2, 1, 3, 10), executorService));
+		}
+		futures.forEach(f -> assertEquals(1, f.join().size()));
+		executorService.shutdown();
+
+		assertEquals(1, tripPricer.calls.get());
+	}
+
+	@Test
+	public void changedPreferencesOrRewardsRequestNewQuote() {
+		CountingTripPricer tripPricer = new CountingTripPricer();
+		TripQuoteCache cache = new TripQuoteCache(tripPricer);
+		UUID userId = UUID.randomUUID();
+
+		cache.getPrice("key", userId, 2, 1, 3, 10);
+		cache.getPrice("key", userId, 3, 1, 3, 10);
+		cache.getPrice("key", userId, 2, 1, 3, 20);
+		assertEquals(3, tripPricer.calls.get());
+
+		// the quote for the previous inputs is still cached until it expires
+		cache.getPrice("key", userId, 2, 1, 3, 10);
+		assertEquals(3, tripPricer.calls.get());
+	}
+}
@@ -0,0 +1,152 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.persistence.UserLog;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+public class TestUserLog {
+
+	private static final int SMALL_SEGMENT = 4096;
+
+	@TempDir
+	Path directory;
+
+	private final Attraction disneyland = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+
+	private VisitedLocation visit(User user, double latitude, long time) {
+		return new VisitedLocation(user.getUserId(), new Location(latitude, latitude + 100), new Date(time));
+	}
+
+	private long segmentCount() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(p -> p.getFileName().toString().endsWith(".log")).count();
+		}
+	}
+
+	@Test
+	public void recoversUsersLocationsAndRewards() {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		VisitedLocation first = visit(user, 1, 1000);
+		VisitedLocation second = visit(user, 2, 2000);
+
+		try (UserLog userLog = new UserLog(directory, UserLog.DEFAULT_SEGMENT_SIZE)) {
+			assertTrue(userLog.isEmpty());
+			userLog.appendUser(user);
+			userLog.appendLocation(first);
+			userLog.appendLocation(second);
+			userLog.appendReward(user.getUserId(), new UserReward(first, disneyland, 42));
+		}
+
+		try (UserLog userLog = new UserLog(directory, UserLog.DEFAULT_SEGMENT_SIZE)) {
+			assertFalse(userLog.isEmpty());
+			List<User> users = userLog.loadUsers(Map.of(disneyland.attractionName, disneyland));
+
+			assertEquals(1, users.size());
+			User recovered = users.get(0);
+			assertEquals(user.getUserId(), recovered.getUserId());
+			assertEquals("jon", recovered.getUserName());
+			assertEquals("jon@tourGuide.com", recovered.getEmailAddress());
+			assertEquals(2, recovered.getVisitedLocations().size());
+			assertEquals(2, recovered.getLastVisitedLocation().location.latitude);
+			assertEquals(102, recovered.getLastVisitedLocation().location.longitude);
+			assertEquals(2000, recovered.getLastVisitedLocation().timeVisited.getTime());
+			assertEquals(1, recovered.getUserRewards().size());
+			assertSame(disneyland, recovered.getUserRewards().get(0).attraction);
+			assertEquals(42, recovered.getUserRewards().get(0).getRewardPoints());
+		}
+	}
+
+	@Test
+	public void reopensTheTailSegmentWhenItHasRoom() throws IOException {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		try (UserLog userLog = new UserLog(directory, SMALL_SEGMENT)) {
+			userLog.appendUser(user);
+			userLog.appendLocation(visit(user, 1, 1000));
+		}
+		try (UserLog userLog = new UserLog(directory, SMALL_SEGMENT)) {
+			userLog.appendLocation(visit(user, 2, 2000));
+		}
+
+		assertEquals(1, segmentCount());
+		try (UserLog userLog = new UserLog(directory, SMALL_SEGMENT)) {
+			User recovered = userLog.loadUsers(Map.of()).get(0);
+			assertEquals(2, recovered.getVisitedLocations().size());
+			assertEquals(2000, recovered.getLastVisitedLocation().timeVisited.getTime());
+		}
+	}
+
+	@Test
+	public void rollsOverAndCompactsSealedSegments() throws IOException {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		try (UserLog userLog = new UserLog(directory, SMALL_SEGMENT)) {
+			userLog.appendUser(user);
+			for (int i = 0; i < 500; i++) {
+				userLog.appendLocation(visit(user, i % 80, i));
+			}
+			userLog.appendReward(user.getUserId(), new UserReward(visit(user, 1, 1), disneyland, 7));
+			userLog.appendReward(user.getUserId(), new UserReward(visit(user, 2, 2), disneyland, 8));
+			assertTrue(segmentCount() > 2);
+
+			assertTrue(userLog.compact());
+			assertEquals(2, segmentCount());
+			assertFalse(userLog.compact());
+
+			List<User> users = userLog.loadUsers(Map.of());
+			assertEquals(1, users.size());
+			assertEquals(500, users.get(0).getVisitedLocations().size());
+			assertEquals(499, users.get(0).getLastVisitedLocation().timeVisited.getTime());
+			assertEquals(1, users.get(0).getUserRewards().size());
+			assertEquals(7, users.get(0).getUserRewards().get(0).getRewardPoints());
+		}
+	}
+
+	@Test
+	public void ignoresTornRecordAtTheEndOfASegment() throws IOException {
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		try (UserLog userLog = new UserLog(directory, SMALL_SEGMENT)) {
+			userLog.appendUser(user);
+			userLog.appendLocation(visit(user, 1, 1000));
+			userLog.appendLocation(visit(user, 2, 2000));
+		}
+
+		Path segment;
+		try (Stream<Path> files = Files.list(directory)) {
+			segment = files.sorted().findFirst().orElseThrow();
+		}
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			long lastPayloadByte = 16 + (9 + 16 + 6 + 3 + 3 + 17) + 2 * (9 + 40) - 1;
+			file.seek(lastPayloadByte);
+			int value = file.read();
+			file.seek(lastPayloadByte);
+			file.write(value ^ 0xFF);
+		}
+
+		try (UserLog userLog = new UserLog(directory, SMALL_SEGMENT)) {
+			List<User> users = userLog.loadUsers(Map.of());
+			assertEquals(1, users.get(0).getVisitedLocations().size());
+			assertEquals(1000, users.get(0).getLastVisitedLocation().timeVisited.getTime());
+		}
+	}
+}
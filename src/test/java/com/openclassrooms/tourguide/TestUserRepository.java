@@ -0,0 +1,66 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRepository;
+
+public class TestUserRepository {
+
+	private User newUser(int i) {
+		return new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com");
+	}
+
+	@Test
+	public void findsUsersByNameAndId() {
+		UserRepository repository = new UserRepository();
+		User user = newUser(1);
+
+		assertTrue(repository.add(user));
+		assertFalse(repository.add(new User(UUID.randomUUID(), "user1", "000", "other@tourGuide.com")));
+
+		assertSame(user, repository.findByUserName("user1"));
+		assertSame(user, repository.findById(user.getUserId()));
+		assertNull(repository.findByUserName("nobody"));
+		assertEquals(1, repository.size());
+	}
+
+	@Test
+	public void concurrentAddsAreAllVisibleAcrossShards() throws InterruptedException {
+		UserRepository repository = new UserRepository(16);
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			int offset = t * 10_000;
+			executorService.execute(() -> IntStream.range(offset, offset + 10_000).forEach(i -> repository.add(newUser(i))));
+		}
+		executorService.shutdown();
+		assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+
+		assertEquals(80_000, repository.size());
+		int shardTotal = 0;
+		for (int shard = 0; shard < repository.getShardCount(); shard++) {
+			shardTotal += repository.shard(shard).size();
+		}
+		assertEquals(80_000, shardTotal);
+
+		Set<String> iterated = new HashSet<>();
+		repository.forEach(u -> iterated.add(u.getUserName()));
+		assertEquals(80_000, iterated.size());
+		assertEquals(80_000, repository.stream().parallel().count());
+	}
+
+}